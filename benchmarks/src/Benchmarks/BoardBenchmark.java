@@ -0,0 +1,68 @@
+package Benchmarks;
+
+import Game.Board;
+import Game.Mark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+/**
+ * Measures the operations of the board that every search calls in its inner loops: rotating a sub-board,
+ * checking for a winner and listing the empty fields.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     Board
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"4", "12", "20"})
+    private int moves;
+
+    private Board board;
+    private int rotation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Positions.afterMoves(moves);
+    }
+
+    /**
+     * Rotates a sub-board forth and back, so the position stays the same for the next call.
+     *
+     * @return      board after both rotations
+     */
+    @Benchmark
+    public Board rotate() {
+        rotation = (rotation + 2) % 8;
+        board.rotate(rotation);
+        board.rotate(rotation + 1);
+        return board;
+    }
+
+    @Benchmark
+    public boolean isWinner() {
+        return board.isWinner(Mark.XX);
+    }
+
+    @Benchmark
+    public List<Integer> getEmptyCells() {
+        return board.getEmptyCells();
+    }
+
+}
@@ -0,0 +1,70 @@
+package Benchmarks;
+
+import Game.Board;
+import Game.Mark;
+import Game.Move;
+import Strategy.Algorithms.Minimax;
+import Strategy.Algorithms.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Minimax with a fixed depth on the canned positions, with and without a transposition table. The table
+ * is cleared before every search, so every search does the same work.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     Minimax
+ * @see     TranspositionTable
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MinimaxBenchmark {
+
+    private static final int TABLE_SIZE = 1 << 18;
+
+    @Param({"4", "12", "20"})
+    private int moves;
+
+    @Param({"1", "2"})
+    private int depth;
+
+    private Board board;
+    private Mark mark;
+    private TranspositionTable table;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Positions.afterMoves(moves);
+        mark = Positions.toMove(moves);
+        table = new TranspositionTable(TABLE_SIZE);
+    }
+
+    @Benchmark
+    public Move minimax() {
+        return new Minimax(depth).findBestMove(board, mark);
+    }
+
+    @Benchmark
+    public Move minimaxWithTable() {
+        table.clear();
+        return new Minimax(depth, table).findBestMove(board, mark);
+    }
+
+}
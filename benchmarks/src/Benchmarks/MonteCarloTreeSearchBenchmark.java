@@ -0,0 +1,80 @@
+package Benchmarks;
+
+import Game.Board;
+import Game.Mark;
+import Strategy.Algorithms.MonteCarloTreeSearch;
+import Strategy.Algorithms.State;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures MCTS on the canned positions: the generation of all child states and the whole search with a fixed
+ * number of iterations. A fixed amount of work makes the results comparable between runs, unlike a search with a
+ * thinking time.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     MonteCarloTreeSearch
+ * @see     State
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonteCarloTreeSearchBenchmark {
+
+    /**
+     * Thinking time that is never reached, so the search always stops at the hard cap of iterations.
+     */
+    private static final long NO_TIME_LIMIT = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"4", "12", "20"})
+    private int moves;
+
+    @Param({"1000", "5000"})
+    private int iterations;
+
+    private Board board;
+    private Mark mark;
+    private State state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = Positions.afterMoves(moves);
+        mark = Positions.toMove(moves);
+        state = new State(board, mark.other());
+    }
+
+    @Benchmark
+    public List<State> getAllPossibleStates() {
+        return state.getAllPossibleStates();
+    }
+
+    /**
+     * Runs MCTS with a new tree, so no search profits from the tree of the previous one.
+     *
+     * @return      board after the chosen move
+     */
+    @Benchmark
+    public Board monteCarloTreeSearch() {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(1);
+        mcts.setThinkTime(NO_TIME_LIMIT);
+        mcts.setMaxIterations(iterations);
+        return mcts.findNextMove(board, mark);
+    }
+
+}
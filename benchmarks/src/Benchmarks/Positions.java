@@ -0,0 +1,59 @@
+package Benchmarks;
+
+import Game.Board;
+import Game.Mark;
+import Game.Move;
+
+import java.util.Random;
+
+/**
+ * Canned positions for the benchmarks. Every position is played from the empty board with random moves of a fixed
+ * seed, so every run measures the same boards. Moves that would end the game are skipped.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ */
+final class Positions {
+
+    private static final long SEED = 20220128L;
+
+    private Positions() {
+    }
+
+    /**
+     * Returns a position in which the selected number of moves were played. X makes the first move, so X is to
+     * move in positions with an even number of moves.
+     *
+     * @param   moves   number of moves, from 0 to 30
+     * @return          board with the position
+     */
+    static Board afterMoves(int moves) {
+        Random random = new Random(SEED);
+        Board board = new Board();
+        Mark mark = Mark.XX;
+        int played = 0;
+        while (played < moves) {
+            Move move = Move.of(board.getEmptyField(random.nextInt(Long.bitCount(board.getBitboard(Mark.EMPTY)))),
+                    random.nextInt(Move.ROTATIONS));
+            board.makeMove(move, mark);
+            if (board.gameOver()) {
+                board.unmakeMove();
+                continue;
+            }
+            mark = mark.other();
+            played++;
+        }
+        return board.deepCopy();
+    }
+
+    /**
+     * Returns the mark to move after the selected number of moves.
+     *
+     * @param   moves   number of moves
+     * @return          mark to move
+     */
+    static Mark toMove(int moves) {
+        return moves % 2 == 0 ? Mark.XX : Mark.OO;
+    }
+
+}
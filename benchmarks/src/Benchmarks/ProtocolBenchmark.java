@@ -0,0 +1,40 @@
+package Benchmarks;
+
+import Game.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast the moves of the server protocol are read and written, which happens for every move of
+ * every game on the server.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     Move
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    private final String command = Move.of(20, 5).toString();
+
+    @Benchmark
+    public Move parse() {
+        return Move.parse(command);
+    }
+
+    @Benchmark
+    public String format() {
+        return Move.of(20, 5).toString();
+    }
+
+}
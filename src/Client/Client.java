@@ -2,6 +2,7 @@ package Client;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -130,17 +131,16 @@ public class Client {
                 System.out.println(board.toString());
             }
             if (splittedCommand[0].equals("MOVE")) {
-                int index = Integer.parseInt(splittedCommand[1]);
-                int rotation = Integer.parseInt(splittedCommand[2]);
-                if (board.isEmptyField(index)) {
+                Move move = Move.parse(msg);
+                if (move != null && board.isEmptyField(move.getIndex())) {
                     if(turn == true) {
-                        board.setField(index, Mark.XX);
+                        board.setField(move.getIndex(), Mark.XX);
                         turn = false;
                     } else {
-                        board.setField(index, Mark.OO);
+                        board.setField(move.getIndex(), Mark.OO);
                         turn = true;
                     }
-                    board.rotate(rotation);
+                    board.rotate(move.getRotation());
                 }
                 System.out.println(board.toString());
             }
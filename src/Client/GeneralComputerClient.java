@@ -2,6 +2,7 @@ package Client;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 import Player.AbstractPlayer;
 import Player.BotPlayer;
 import Strategy.Strategy;
@@ -27,6 +28,8 @@ public class GeneralComputerClient {
     private boolean turn = true;
 
     private AbstractPlayer player;
+    private Strategy strategy;
+    private boolean pondering;
     private int playerNumber = 0;
     private int index;
     private int rotation;
@@ -42,6 +45,16 @@ public class GeneralComputerClient {
         this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
     }
 
+    /**
+     * Sets whether the bot thinks on the opponent's time. The strategy then searches in the background from the
+     * moment our move is confirmed until the opponent's move arrives.
+     *
+     * @param   pondering   true to think on the opponent's time
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
+
     /**
      * Starts the general computer client with the name of the bot and the desired strategy
      *
@@ -49,6 +62,7 @@ public class GeneralComputerClient {
      * @param   strategy    strategy that the bot will use on the server
      */
     public void start(String nameBot, Strategy strategy) {
+        this.strategy = strategy;
         try {
             //do initialization
             out.println("HELLO~"+nameBot);
@@ -62,6 +76,7 @@ public class GeneralComputerClient {
 
             //loop to get in queue and play a game
             outerloop: while (true) {
+                strategy.stopPondering();
                 //get into queue
                 out.flush();
                 out.println("QUEUE");
@@ -110,8 +125,9 @@ public class GeneralComputerClient {
 
                                 //we do not start, so first read move from other user
                                 String move = in.readLine();
-                                while (!move.contains("MOVE")) {
-                                    System.out.println("Got something from server without MOVE, namely " + move);
+                                Move theirMove = Move.parse(move);
+                                while (theirMove == null) {
+                                    System.out.println("Got no valid move from server, namely " + move);
                                     if (move.contains("GAMEOVER")) {
                                         System.out.println("The game is over: " + move);
                                         continue outerloop;
@@ -122,11 +138,12 @@ public class GeneralComputerClient {
                                         out.flush();
                                     }
                                     move = in.readLine();
+                                    theirMove = Move.parse(move);
                                 }
                                 System.out.println("Their move: " + move);
-                                String[] splittedCommand = move.split("~");
-                                index = Integer.parseInt(splittedCommand[1]);
-                                rotation = Integer.parseInt(splittedCommand[2]);
+                                strategy.stopPondering();
+                                index = theirMove.getIndex();
+                                rotation = theirMove.getRotation();
 
                                 //set the board
                                 if (board.isEmptyField(index)) {
@@ -143,8 +160,8 @@ public class GeneralComputerClient {
 
                                 //now read our move
                                 if (!board.gameOver()) {
-                                    String[] ourMove = player.determineMove(board);
-                                    String ourMoveString = ourMove[0]+"~"+ourMove[1]+"~"+ourMove[2];
+                                    Move ourMove = player.determineMove(board);
+                                    String ourMoveString = ourMove.toString();
                                     out.println(ourMoveString);
                                     out.flush();
                                     System.out.println("Our move: " + ourMoveString);
@@ -162,8 +179,8 @@ public class GeneralComputerClient {
                                         }
                                         temp = in.readLine();
                                     }
-                                    index = Integer.parseInt(ourMove[1]);
-                                    rotation = Integer.parseInt(ourMove[2]);
+                                    index = ourMove.getIndex();
+                                    rotation = ourMove.getRotation();
 
                                     //set the board
                                     if (board.isEmptyField(index)) {
@@ -177,6 +194,7 @@ public class GeneralComputerClient {
                                         board.rotate(rotation);
                                     }
                                     System.out.println(board.toString());
+                                    ponder();
                                 } else {
                                     String result = in.readLine();
                                     if (result.contains("GAMEOVER")) {
@@ -190,8 +208,8 @@ public class GeneralComputerClient {
                             while (!board.gameOver()) {
 
                                 //we do start now, so first send and read our move
-                                String[] ourMove = player.determineMove(board);
-                                String ourMoveString = ourMove[0]+"~"+ourMove[1]+"~"+ourMove[2];
+                                Move ourMove = player.determineMove(board);
+                                String ourMoveString = ourMove.toString();
                                 out.println(ourMoveString);
                                 out.flush();
                                 System.out.println("Our move: " + ourMoveString);
@@ -209,8 +227,8 @@ public class GeneralComputerClient {
                                     }
                                     temp = in.readLine();
                                 }
-                                index = Integer.parseInt(ourMove[1]);
-                                rotation = Integer.parseInt(ourMove[2]);
+                                index = ourMove.getIndex();
+                                rotation = ourMove.getRotation();
 
                                 //set the board
                                 if (board.isEmptyField(index)) {
@@ -224,12 +242,14 @@ public class GeneralComputerClient {
                                     board.rotate(rotation);
                                 }
                                 System.out.println(board.toString());
+                                ponder();
 
                                 //now get their move
                                 if (!board.gameOver()) {
                                     String move = in.readLine();
-                                    while (!move.contains("MOVE")) {
-                                        System.out.println("Got something from server without MOVE, namely " + move);
+                                    Move theirMove = Move.parse(move);
+                                    while (theirMove == null) {
+                                        System.out.println("Got no valid move from server, namely " + move);
                                         if (move.contains("GAMEOVER")) {
                                             System.out.println("The game is over: " + move);
                                             continue outerloop;
@@ -240,11 +260,12 @@ public class GeneralComputerClient {
                                             out.flush();
                                         }
                                         move = in.readLine();
+                                        theirMove = Move.parse(move);
                                     }
                                     System.out.println("Their move: " + move);
-                                    String[] splittedCommand = move.split("~");
-                                    index = Integer.parseInt(splittedCommand[1]);
-                                    rotation = Integer.parseInt(splittedCommand[2]);
+                                    strategy.stopPondering();
+                                    index = theirMove.getIndex();
+                                    rotation = theirMove.getRotation();
 
                                     //set the board
                                     if (board.isEmptyField(index)) {
@@ -275,7 +296,18 @@ public class GeneralComputerClient {
             }
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            strategy.stopPondering();
         }
 
     }
+
+    /**
+     * Lets the strategy think on the opponent's time if pondering is on and the game is not over.
+     */
+    private void ponder() {
+        if (pondering && !board.gameOver()) {
+            strategy.startPondering(board, player.getMark());
+        }
+    }
 }
@@ -32,9 +32,21 @@ public class SmartComputerClient {
                 break;
             }
         }
+        System.out.println("Enter thinking time per move in milliseconds (0 to use the difficulty level): ");
+        long thinkTime = scanner.nextLong();
+        if (thinkTime > 0) {
+            alphaPentaGo.setThinkTime(thinkTime);
+            System.out.println("Search with Minimax only, as deep as the thinking time allows? (y/n): ");
+            if (scanner.next().equalsIgnoreCase("y")) {
+                alphaPentaGo.setMinimaxTime(thinkTime);
+            }
+        }
+        System.out.println("Think on the opponent's time? (y/n): ");
+        boolean pondering = scanner.next().equalsIgnoreCase("y");
         try {
             Socket sock = new Socket("130.89.253.64", 55555);
             GeneralComputerClient computerClient = new GeneralComputerClient(sock);
+            computerClient.setPondering(pondering);
             computerClient.start(alphaPentaGo.getName(), alphaPentaGo);
         } catch (UnknownHostException e) {
             System.out.println("Oops, something went wrong. Cannot find server.");
@@ -1,11 +1,12 @@
 package Game;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 /**
- * Board is the class which represents the Pentago game board. The board is represented by an array of Marks. The class
+ * Board is the class which represents the Pentago game board. The board is represented by two bitboards, one
+ * <code>long</code> per player, where bit <em>i</em> is set when the player has a mark on field <em>i</em>. The class
  * provides lots of fundamental methods to play the game. The client and server, strategy and the players all need methods
  * from this class.
  *
@@ -17,9 +18,25 @@ import java.util.List;
 public class Board {
 
     /**
-     * An array of marks that represents the board.
+     * Bitboard with the fields occupied by the X mark.
      */
-    private final Mark[] fields = new Mark[DIM * DIM];
+    private long xx;
+    /**
+     * Bitboard with the fields occupied by the O mark.
+     */
+    private long oo;
+    /**
+     * Zobrist hash of the position, updated with every change of the board.
+     */
+    private long hash;
+    /**
+     * Positions and hashes before the moves made with makeMove, three longs per move.
+     */
+    private long[] undoStack;
+    /**
+     * Number of moves on the undo stack.
+     */
+    private int undoSize;
     /**
      * An empty String delimiter for the board.
      */
@@ -28,6 +45,14 @@ public class Board {
      * Dimension of the board.
      */
     public static final int DIM = 6;
+    /**
+     * Bitboard with all fields of the board set.
+     */
+    private static final long FULL = (1L << (DIM * DIM)) - 1;
+    /**
+     * Maximum number of moves on the undo stack, every move fills one field.
+     */
+    private static final int MAX_MOVES = DIM * DIM;
     /**
      * A String delimiter for the board.
      */
@@ -43,30 +68,185 @@ public class Board {
                     " 24 | 25 | 26 | 27 | 28 | 29 ", LINE,
                     " 30 | 31 | 32 | 33 | 34 | 35 ", LINE
             };
+    /**
+     * Number of marks in succession that are needed to win.
+     */
+    private static final int STREAK = 5;
+    /**
+     * Bitboards of all 32 lines of five fields that win the game: 12 in rows, 12 in columns and 8 on diagonals.
+     */
+    private static final long[] WIN_MASKS = new long[32];
+    /**
+     * Indexes at which the four sub-boards start.
+     */
+    private static final int[] SUB_BOARD_OFFSETS = {0, 3, 18, 21};
+    /**
+     * Bitboard of the top left sub-board, shifted by the offset it covers any other sub-board.
+     */
+    private static final long SUB_BOARD_MASK = 7L | 7L << DIM | 7L << 2 * DIM;
+    /**
+     * Lookup table that maps every 9-bit sub-board pattern to the pattern rotated clockwise.
+     */
+    private static final short[] CLOCKWISE = rotationTable(new int[] {6, 3, 0, 7, 4, 1, 8, 5, 2});
+    /**
+     * Lookup table that maps every 9-bit sub-board pattern to the pattern rotated counter-clockwise.
+     */
+    private static final short[] COUNTER_CLOCKWISE = rotationTable(new int[] {2, 5, 8, 1, 4, 7, 0, 3, 6});
+    /**
+     * Seed of the Zobrist keys. It is fixed, so the same position has the same hash in every run.
+     */
+    private static final long ZOBRIST_SEED = 0x9E3779B97F4A7C15L;
+    /**
+     * Zobrist keys for the X mark (index 0) and the O mark (index 1) on every field.
+     */
+    private static final long[][] FIELD_KEYS = new long[2][DIM * DIM];
+    /**
+     * Zobrist keys of every 9-bit pattern of every sub-board for both marks, used to update the hash on rotation.
+     */
+    private static final long[][][] SUB_BOARD_KEYS = new long[SUB_BOARD_OFFSETS.length][2][1 << 9];
+    /**
+     * Field to which every field moves under the 8 symmetries of the square board: the four rotations of the whole
+     * board and the same rotations after a mirror. Every symmetry maps sub-boards onto sub-boards and lines of
+     * five onto lines of five, so symmetric positions have the same value. The first symmetry is the identity.
+     */
+    private static final int[][] SYMMETRIES = new int[8][DIM * DIM];
+    /**
+     * Packed move to which every packed move changes under the 8 symmetries. The field moves like any other field,
+     * the rotated sub-board becomes the sub-board to which its center moves, and a mirror turns a clockwise
+     * rotation into a counter-clockwise one.
+     */
+    private static final short[][] SYMMETRIC_MOVES = new short[SYMMETRIES.length][Move.COUNT];
+
+    static {
+        int n = 0;
+        for (int i = 0; i < DIM; i++) {
+            for (int j = 0; j <= DIM - STREAK; j++) {
+                long row = 0L;
+                long column = 0L;
+                for (int k = 0; k < STREAK; k++) {
+                    row |= 1L << (i * DIM + j + k);
+                    column |= 1L << ((j + k) * DIM + i);
+                }
+                WIN_MASKS[n++] = row;
+                WIN_MASKS[n++] = column;
+            }
+        }
+        for (int i = 0; i <= DIM - STREAK; i++) {
+            for (int j = 0; j <= DIM - STREAK; j++) {
+                long down = 0L;
+                long up = 0L;
+                for (int k = 0; k < STREAK; k++) {
+                    down |= 1L << ((i + k) * DIM + j + k);
+                    up |= 1L << ((i + k) * DIM + DIM - 1 - j - k);
+                }
+                WIN_MASKS[n++] = down;
+                WIN_MASKS[n++] = up;
+            }
+        }
+
+        Random random = new Random(ZOBRIST_SEED);
+        for (long[] keys : FIELD_KEYS) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+        for (int q = 0; q < SUB_BOARD_OFFSETS.length; q++) {
+            for (int m = 0; m < FIELD_KEYS.length; m++) {
+                for (int pattern = 0; pattern < 1 << 9; pattern++) {
+                    long bits = subBoardBits(pattern, SUB_BOARD_OFFSETS[q]);
+                    long key = 0L;
+                    while (bits != 0) {
+                        key ^= FIELD_KEYS[m][Long.numberOfTrailingZeros(bits)];
+                        bits &= bits - 1;
+                    }
+                    SUB_BOARD_KEYS[q][m][pattern] = key;
+                }
+            }
+        }
+
+        for (int s = 0; s < SYMMETRIES.length; s++) {
+            for (int i = 0; i < DIM * DIM; i++) {
+                int row = i / DIM;
+                int col = s < 4 ? i % DIM : DIM - 1 - i % DIM;
+                for (int k = 0; k < s % 4; k++) {
+                    int temp = row;
+                    row = col;
+                    col = DIM - 1 - temp;
+                }
+                SYMMETRIES[s][i] = row * DIM + col;
+            }
+        }
+        for (int s = 0; s < SYMMETRIC_MOVES.length; s++) {
+            for (int packed = 0; packed < Move.COUNT; packed++) {
+                int subBoard = Move.rotation(packed) / 2;
+                int center = SYMMETRIES[s][SUB_BOARD_OFFSETS[subBoard] + DIM + 1];
+                int symmetricSubBoard = 0;
+                while (SUB_BOARD_OFFSETS[symmetricSubBoard] + DIM + 1 != center) {
+                    symmetricSubBoard++;
+                }
+                int clockwise = Move.rotation(packed) % 2 ^ (s < 4 ? 0 : 1);
+                SYMMETRIC_MOVES[s][packed] = (short) Move.of(SYMMETRIES[s][Move.index(packed)],
+                        symmetricSubBoard * 2 + clockwise).pack();
+            }
+        }
+    }
+
+    /**
+     * Builds the lookup table of one rotation direction for all 512 patterns of a sub-board. The source array
+     * tells for every field of the rotated sub-board from which field its mark comes, both numbered row by row
+     * from 0 to 8.
+     *
+     * @param   source  field of the original sub-board for each field of the rotated sub-board
+     * @return          rotated pattern for every pattern
+     */
+    private static short[] rotationTable(int[] source) {
+        short[] table = new short[1 << 9];
+        for (int pattern = 0; pattern < table.length; pattern++) {
+            int rotated = 0;
+            for (int field = 0; field < 9; field++) {
+                rotated |= ((pattern >>> source[field]) & 1) << field;
+            }
+            table[pattern] = (short) rotated;
+        }
+        return table;
+    }
 
     /**
      * Creates an empty game board of size DIM x DIM.
      */
     public Board() {
-        for (int i = 0; i < DIM * DIM; i++) {
-            fields[i] = Mark.EMPTY;
-        }
+        xx = 0L;
+        oo = 0L;
     }
 
     /**
      * Creates a copy of the board. The copy should contain the same position on the board as the original one.
+     * The moves on the undo stack are not copied.
      *
      * @return  copy of the board. If the board is empty,
      *          returns an empty copy of the board
      */
     public Board deepCopy() {
         Board copyBoard = new Board();
-        for (int i = 0; i < DIM * DIM; i++) {
-            copyBoard.fields[i] = this.fields[i];
-        }
+        copyBoard.xx = this.xx;
+        copyBoard.oo = this.oo;
+        copyBoard.hash = this.hash;
         return copyBoard;
     }
 
+    /**
+     * Puts the position of the other board on this board without creating a new object. The undo stack is emptied,
+     * so a board can be reused for many random games.
+     *
+     * @param   board   board with the position to copy
+     */
+    public void copyFrom(Board board) {
+        xx = board.xx;
+        oo = board.oo;
+        hash = board.hash;
+        undoSize = 0;
+    }
+
     /**
      * Calculates the index of the board from a (row, col) pair.
      *
@@ -117,7 +297,10 @@ public class Board {
      */
     public Mark getField(int i) {
         if (isField(i)) {
-            return fields[i];
+            long bit = 1L << i;
+            if ((xx & bit) != 0) return Mark.XX;
+            if ((oo & bit) != 0) return Mark.OO;
+            return Mark.EMPTY;
         }
         return null;
     }
@@ -135,18 +318,37 @@ public class Board {
     */
     public Mark getField(int row, int col) {
         if (isField(row, col)) {
-            return fields[index(row, col)];
+            return getField(index(row, col));
         }
         return null;
     }
 
     /**
-     * Returns a board as an array of marks.
+     * Returns a board as an array of marks. The array is a new copy, changing it does not change the board.
      *
      * @return      array of marks
      */
     public Mark[] getFields() {
-        return this.fields;
+        Mark[] fields = new Mark[DIM * DIM];
+        for (int i = 0; i < DIM * DIM; i++) {
+            fields[i] = getField(i);
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the bitboard of the selected mark. Bit <em>i</em> of the result is set when field <em>i</em>
+     * contains the mark. For <code>Mark.EMPTY</code> the bitboard of all empty fields is returned.
+     *
+     * @param   m   selected mark
+     * @return      bitboard of the mark
+     *
+     * @see     Mark
+     */
+    public long getBitboard(Mark m) {
+        if (m == Mark.XX) return xx;
+        if (m == Mark.OO) return oo;
+        return ~(xx | oo) & FULL;
     }
 
     /**
@@ -161,7 +363,7 @@ public class Board {
     */
     public boolean isEmptyField(int i) {
         if (isField(i)) {
-            return getField(i) == Mark.EMPTY;
+            return ((xx | oo) & (1L << i)) == 0;
         }
         return false;
     }
@@ -179,7 +381,7 @@ public class Board {
      */
     public boolean isEmptyField(int row, int col) {
         if (isField(row, col)) {
-            return getField(row, col) == Mark.EMPTY;
+            return isEmptyField(index(row, col));
         }
         return false;
     }
@@ -189,14 +391,9 @@ public class Board {
      *
      * @return      true if all fields are occupied
      */
-    //@ ensures (\forall int i; (i >= 0 && i < DIM*DIM); fields[i] == Mark.XX || fields[i] == Mark.OO);
+    //@ ensures (\forall int i; (i >= 0 && i < DIM*DIM); getField(i) == Mark.XX || getField(i) == Mark.OO);
     public boolean isFull() {
-        for (int i = 0; i < DIM * DIM; i++) {
-            if (fields[i] == Mark.EMPTY) {
-                return false;
-            }
-        }
-        return true;
+        return (xx | oo) == FULL;
     }
 
     /**
@@ -352,7 +549,8 @@ public class Board {
 
     /**
      * Checks if the selected mark has won. Player wins if player has more than 4 marks on at
-     * least one row, column or diagonal.
+     * least one row, column or diagonal. Every possible line of five is a precomputed mask, so the check
+     * is a couple of AND operations per line instead of walking the board.
      *
      * @param   m   selected mark
      * @return      true if the selected mark has won
@@ -364,7 +562,65 @@ public class Board {
     ensures hasRow(m, 5) || hasColumn(m, 5) || hasDiagonal(m, 5) ==> \result == true;
     */
     public boolean isWinner(Mark m) {
-        return hasRow(m, 5) || hasColumn(m, 5) || hasDiagonal(m, 5);
+        return isWinner(getBitboard(m));
+    }
+
+    /**
+     * Returns the bitboards of all 32 lines of five fields that win the game. The array is a copy.
+     *
+     * @return      bitboards of the winning lines
+     */
+    public static long[] getWinMasks() {
+        return WIN_MASKS.clone();
+    }
+
+    /**
+     * Checks if the selected bitboard contains at least one winning line of five fields.
+     *
+     * @param   bits    bitboard of one mark
+     * @return          true if one of the winning lines is fully set
+     */
+    private static boolean isWinner(long bits) {
+        for (long mask : WIN_MASKS) {
+            if ((bits & mask) == mask) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the selected mark can win with its next move, that is it has five in a row after the move and the
+     * other mark has not. Only the bitboards and the winning lines are used, no move is made: a placement that
+     * fills the last field of a line wins before the rotation, otherwise every rotation is tried on the bitboards
+     * and a line may miss one field that is empty after the rotation.
+     *
+     * @param   m   the mark to move
+     * @return      true if one of the moves of the mark wins the game
+     */
+    /*@
+    requires m == Mark.XX || m == Mark.OO;
+    */
+    public boolean hasWinningMove(Mark m) {
+        long own = getBitboard(m);
+        if (Long.bitCount(own) < STREAK - 1 || gameOver()) {
+            return false;
+        }
+        long other = getBitboard(m.other());
+        long empty = ~(xx | oo) & FULL;
+        for (long mask : WIN_MASKS) {
+            long missing = mask & ~own;
+            if (Long.bitCount(missing) == 1 && (missing & empty) != 0) return true;
+        }
+        // the last empty field fills the board, which ends the game before the rotation as well
+        for (int r = 0; r < Move.ROTATIONS && Long.bitCount(empty) > 1; r++) {
+            if (isWinner(rotatedBits(other, r))) continue;
+            long rotatedOwn = rotatedBits(own, r);
+            long rotatedEmpty = rotatedBits(empty, r);
+            for (long mask : WIN_MASKS) {
+                long missing = mask & ~rotatedOwn;
+                if (missing == 0 || Long.bitCount(missing) == 1 && (missing & rotatedEmpty) != 0) return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -376,7 +632,7 @@ public class Board {
      */
     //@ ensures isWinner(Mark.XX) || isWinner(Mark.OO) ==> \result == true;
     public boolean hasWinner() {
-        return isWinner(Mark.XX) || isWinner(Mark.OO);
+        return isWinner(xx) || isWinner(oo);
     }
 
     /**
@@ -406,11 +662,12 @@ public class Board {
     /**
      * Empties all fields on the board.
      */
-    //@ ensures (\forall int i; (i >= 0 && i < DIM*DIM); fields[i] == Mark.EMPTY);
+    //@ ensures (\forall int i; (i >= 0 && i < DIM*DIM); getField(i) == Mark.EMPTY);
     public void reset() {
-        for (int i = 0; i < DIM*DIM; i++) {
-            fields[i] = Mark.EMPTY;
-        }
+        xx = 0L;
+        oo = 0L;
+        hash = 0L;
+        undoSize = 0;
     }
 
     /**
@@ -425,7 +682,21 @@ public class Board {
      */
     public void setField(int i, Mark m) {
         if (isField(i)) {
-            fields[i] = m;
+            long bit = 1L << i;
+            if ((xx & bit) != 0) {
+                hash ^= FIELD_KEYS[0][i];
+            } else if ((oo & bit) != 0) {
+                hash ^= FIELD_KEYS[1][i];
+            }
+            xx &= ~bit;
+            oo &= ~bit;
+            if (m == Mark.XX) {
+                xx |= bit;
+                hash ^= FIELD_KEYS[0][i];
+            } else if (m == Mark.OO) {
+                oo |= bit;
+                hash ^= FIELD_KEYS[1][i];
+            }
         }
     }
 
@@ -444,8 +715,70 @@ public class Board {
      */
     public void setField(int row, int col, Mark m) {
         if (isField(row, col)) {
-            fields[index(row, col)] = m;
+            setField(index(row, col), m);
+        }
+    }
+
+    /**
+     * Makes a full Pentago move: puts the mark on the field of the move and then rotates the sub-board of the move.
+     * As in a real game, the rotation is skipped when the mark alone already ends the game. The previous position is
+     * pushed on the undo stack, so the move can be taken back with <code>unmakeMove</code>.
+     *
+     * @param   move    the move to make
+     * @param   m       the mark to be placed
+     * @throws  IllegalArgumentException    if the field of the move is not empty
+     * @throws  IllegalStateException       if the undo stack is full
+     *
+     * @see     #unmakeMove()
+     * @see     Move
+     */
+    /*@
+    requires isEmptyField(move.getIndex());
+    requires m == Mark.XX || m == Mark.OO;
+    ensures getField(move.getIndex()) == m || gameOver() == false;
+    */
+    public void makeMove(Move move, Mark m) {
+        long bit = 1L << move.getIndex();
+        if (((xx | oo) & bit) != 0) {
+            throw new IllegalArgumentException("Field " + move.getIndex() + " is not empty");
+        }
+        if (undoStack == null) {
+            undoStack = new long[3 * MAX_MOVES];
+        }
+        if (undoSize == MAX_MOVES) {
+            throw new IllegalStateException("Undo stack is full");
+        }
+        undoStack[3 * undoSize] = xx;
+        undoStack[3 * undoSize + 1] = oo;
+        undoStack[3 * undoSize + 2] = hash;
+        undoSize++;
+        if (m == Mark.XX) {
+            xx |= bit;
+            hash ^= FIELD_KEYS[0][move.getIndex()];
+        } else {
+            oo |= bit;
+            hash ^= FIELD_KEYS[1][move.getIndex()];
+        }
+        if (!gameOver()) {
+            rotate(move.getRotation());
+        }
+    }
+
+    /**
+     * Takes back the last move that was made with <code>makeMove</code> and restores the position before it.
+     *
+     * @throws  IllegalStateException   if there is no move to take back
+     *
+     * @see     #makeMove(Move, Mark)
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to take back");
         }
+        undoSize--;
+        xx = undoStack[3 * undoSize];
+        oo = undoStack[3 * undoSize + 1];
+        hash = undoStack[3 * undoSize + 2];
     }
 
     /**
@@ -469,28 +802,8 @@ public class Board {
     requires 0 <= choice && choice <= 7;
     */
     public void rotate(int choice) {
-        //first creates copy of the current board
-        Mark[] copyList = Arrays.copyOf(fields, fields.length);
-        //create empty resulting list
-        Mark[] resultList = new Mark[36];
-        switch (choice) {
-            //index is 0 because the first subboard needs to be rotated
-            case 0: resultList = rotateCounterClockWise(copyList, 0); break;
-            case 1: resultList = rotateClockWise(copyList, 0); break;
-            //index is 3 because the second subboard needs to be rotated and this subboard contains the same indices as the first subboard with 3 added each time
-            case 2: resultList = rotateCounterClockWise(copyList, 3); break;
-            case 3: resultList = rotateClockWise(copyList, 3); break;
-            //index is 18 because the third subboard needs to be rotated and this subboard contains the same indices as the first subboard with 18 added each time
-            case 4: resultList = rotateCounterClockWise(copyList, 18); break;
-            case 5: resultList = rotateClockWise(copyList, 18); break;
-            //index is 21 because the fourth subboard needs to be rotated and this subboard contains the same indices as the first subboard with 21 added each time
-            case 6: resultList = rotateCounterClockWise(copyList, 21); break;
-            case 7: resultList = rotateClockWise(copyList, 21); break;
-        }
-        //copy all elements of the resulting list to the original board
-        for (int i = 0; i < DIM * DIM; i++) {
-            fields[i] = resultList[i];
-        }
+        //odd choices rotate clockwise, even choices counter-clockwise
+        rotateSubBoard(choice / 2, choice % 2 == 1 ? CLOCKWISE : COUNTER_CLOCKWISE);
     }
 
     /**
@@ -503,82 +816,66 @@ public class Board {
     requires 0 <= choice && choice <= 7;
     */
     public void rotateBack(int choice) {
-        //first creates copy of the current board
-        Mark[] copyList = Arrays.copyOf(fields, fields.length);
-        //create empty resulting list
-        Mark[] resultList = new Mark[36];
-        switch (choice) {
-            //index is 0 because the first subboard needs to be rotated
-            case 0: resultList = rotateClockWise(copyList, 0); break;
-            case 1: resultList = rotateCounterClockWise(copyList, 0); break;
-            //index is 3 because the second subboard needs to be rotated and this subboard contains the same indices as the first subboard with 3 added each time
-            case 2: resultList = rotateClockWise(copyList, 3); break;
-            case 3: resultList = rotateCounterClockWise(copyList, 3); break;
-            //index is 18 because the third subboard needs to be rotated and this subboard contains the same indices as the first subboard with 18 added each time
-            case 4: resultList = rotateClockWise(copyList, 18); break;
-            case 5: resultList = rotateCounterClockWise(copyList, 18); break;
-            //index is 21 because the fourth subboard needs to be rotated and this subboard contains the same indices as the first subboard with 21 added each time
-            case 6: resultList = rotateClockWise(copyList, 21); break;
-            case 7: resultList = rotateCounterClockWise(copyList, 21); break;
-        }
-        //copy all elements of the resulting list to the original board
-        for (int i = 0; i < DIM * DIM; i++) {
-            fields[i] = resultList[i];
-        }
+        rotateSubBoard(choice / 2, choice % 2 == 1 ? COUNTER_CLOCKWISE : CLOCKWISE);
     }
 
     /**
-     * Rotates chosen by index sub-board clockwise.
-     *
-     * @param   copyList    copy of the current board
-     * @param   index       index at which sub-board starts
-     * @return              the new list in which the sub-board is rotated
+     * Rotates the selected sub-board of both bitboards in place using the selected lookup table. The hash is
+     * updated by replacing the keys of the old sub-board patterns with the keys of the rotated ones.
      *
-     * @see     Mark
+     * @param   subBoard    number of the sub-board (0 top left, 1 top right, 2 bottom left, 3 bottom right)
+     * @param   table       lookup table of the rotation direction
      */
     /*@
-    requires 0 <= index && index <=3;
+    requires 0 <= subBoard && subBoard <= 3;
     */
-    private Mark[] rotateClockWise(Mark[] copyList, int index) {
-        Mark[] resultList = Arrays.copyOf(copyList, copyList.length);
-        //hardcode of rotation of only the first subboard, by using index all other subboard can be rotated as well
-        resultList[index] = copyList[12+index];
-        resultList[1+index] = copyList[6+index];
-        resultList[2+index] = copyList[index];
-        resultList[6+index] = copyList[13+index];
-        resultList[7+index] = copyList[7+index];
-        resultList[8+index] = copyList[1+index];
-        resultList[12+index] = copyList[14+index];
-        resultList[13+index] = copyList[8+index];
-        resultList[14+index] = copyList[2+index];
-        return resultList;
+    private void rotateSubBoard(int subBoard, short[] table) {
+        int offset = SUB_BOARD_OFFSETS[subBoard];
+        int patternXX = subBoardPattern(xx, offset);
+        int patternOO = subBoardPattern(oo, offset);
+        int rotatedXX = table[patternXX];
+        int rotatedOO = table[patternOO];
+        long[][] keys = SUB_BOARD_KEYS[subBoard];
+        hash ^= keys[0][patternXX] ^ keys[0][rotatedXX] ^ keys[1][patternOO] ^ keys[1][rotatedOO];
+        xx = (xx & ~(SUB_BOARD_MASK << offset)) | subBoardBits(rotatedXX, offset);
+        oo = (oo & ~(SUB_BOARD_MASK << offset)) | subBoardBits(rotatedOO, offset);
+    }
+
+    /**
+     * Returns the bitboard after the rotation without changing the board.
+     *
+     * @param   bits    bitboard of one mark or of the empty fields
+     * @param   choice  rotation like in <code>rotate</code>
+     * @return          rotated bitboard
+     */
+    private static long rotatedBits(long bits, int choice) {
+        int offset = SUB_BOARD_OFFSETS[choice / 2];
+        short[] table = choice % 2 == 1 ? CLOCKWISE : COUNTER_CLOCKWISE;
+        return (bits & ~(SUB_BOARD_MASK << offset)) | subBoardBits(table[subBoardPattern(bits, offset)], offset);
     }
 
     /**
-     * Rotates chosen by index sub-board counter-clockwise.
+     * Gathers the nine fields of the sub-board that starts at the offset into a 9-bit pattern, row by row.
      *
-     * @param   copyList    copy of the current board
-     * @param   index       index at which sub-board starts
-     * @return              the new list in which the sub-board is rotated
+     * @param   bits    bitboard of one mark
+     * @param   offset  index at which sub-board starts
+     * @return          9-bit pattern of the sub-board
+     */
+    private static int subBoardPattern(long bits, int offset) {
+        long shifted = bits >>> offset;
+        return (int) ((shifted & 7) | ((shifted >>> DIM) & 7) << 3 | ((shifted >>> 2 * DIM) & 7) << 6);
+    }
+
+    /**
+     * Spreads a 9-bit pattern back over the sub-board that starts at the offset.
      *
-     * @see     Mark
+     * @param   pattern 9-bit pattern of the sub-board
+     * @param   offset  index at which sub-board starts
+     * @return          bitboard with only the fields of the sub-board
      */
-    /*@
-    requires 0 <= index && index <=3;
-    */
-    private Mark[] rotateCounterClockWise(Mark[] copyList, int index) {
-        Mark[] resultList = Arrays.copyOf(copyList, copyList.length);
-        //hardcode of rotation of only the first subboard, by using index all other subboard can be rotated as well
-        resultList[index] = copyList[2+index];
-        resultList[1+index] = copyList[8+index];
-        resultList[2+index] = copyList[14+index];
-        resultList[6+index] = copyList[1+index];
-        resultList[7+index] = copyList[7+index];
-        resultList[8+index] = copyList[13+index];
-        resultList[12+index] = copyList[index];
-        resultList[13+index] = copyList[6+index];
-        resultList[14+index] = copyList[12+index];
-        return resultList;
+    private static long subBoardBits(int pattern, int offset) {
+        long bits = (pattern & 7) | (long) ((pattern >>> 3) & 7) << DIM | (long) ((pattern >>> 6) & 7) << 2 * DIM;
+        return bits << offset;
     }
 
     /**
@@ -591,10 +888,142 @@ public class Board {
     //@ensures (\forall int i; isEmptyField(i) == true);
     public List<Integer> getEmptyCells() {
         List<Integer> list = new ArrayList<>();
-        for (int i = 0; i < DIM * DIM; i++) {
-            if (getField(i) == Mark.EMPTY) list.add(i);
+        long empty = ~(xx | oo) & FULL;
+        while (empty != 0) {
+            list.add(Long.numberOfTrailingZeros(empty));
+            empty &= empty - 1;
         }
         return list;
     }
 
+    /**
+     * Returns the empty field with the selected number, counting the empty fields in ascending order from 0.
+     * Unlike <code>getEmptyCells</code> it does not create a list, so it can be used on every move of a random game.
+     *
+     * @param   n   number of the empty field, smaller than the number of empty fields
+     * @return      index of the field
+     */
+    public int getEmptyField(int n) {
+        long empty = ~(xx | oo) & FULL;
+        for (; n > 0; n--) {
+            empty &= empty - 1;
+        }
+        return Long.numberOfTrailingZeros(empty);
+    }
+
+    /**
+     * Checks if the other object is a board with the same position.
+     *
+     * @param   o   the other object
+     * @return      true if both boards have the same marks on the same fields
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Board)) return false;
+        Board other = (Board) o;
+        return xx == other.xx && oo == other.oo;
+    }
+
+    /**
+     * Returns the 64-bit Zobrist hash of the position on the board. Equal positions always have the same hash,
+     * no matter in which order the marks were put and the sub-boards were rotated.
+     *
+     * @return      Zobrist hash of the board
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the smallest Zobrist hash of the position under the 8 symmetries of the board. Positions that are
+     * rotations or mirrors of each other have the same canonical hash, so they can share one node or one entry
+     * of the transposition table.
+     *
+     * @return      canonical hash of the board
+     */
+    public long canonicalHash() {
+        long canonical = hash;
+        for (int s = 1; s < SYMMETRIES.length; s++) {
+            int[] symmetry = SYMMETRIES[s];
+            long key = 0L;
+            for (long bits = xx; bits != 0; bits &= bits - 1) {
+                key ^= FIELD_KEYS[0][symmetry[Long.numberOfTrailingZeros(bits)]];
+            }
+            for (long bits = oo; bits != 0; bits &= bits - 1) {
+                key ^= FIELD_KEYS[1][symmetry[Long.numberOfTrailingZeros(bits)]];
+            }
+            canonical = Math.min(canonical, key);
+        }
+        return canonical;
+    }
+
+    /**
+     * Creates a new board with the position of this board after the selected symmetry, that is one of the four
+     * rotations of the whole board, optionally after a mirror. Symmetry 0 gives an equal copy.
+     *
+     * @param   symmetry    number of the symmetry from 0 to 7
+     * @return              rotated or mirrored copy of the board
+     */
+    /*@
+    requires 0 <= symmetry && symmetry < 8;
+    */
+    public Board symmetric(int symmetry) {
+        Board copyBoard = new Board();
+        int[] fields = SYMMETRIES[symmetry];
+        for (long bits = xx; bits != 0; bits &= bits - 1) {
+            int field = fields[Long.numberOfTrailingZeros(bits)];
+            copyBoard.xx |= 1L << field;
+            copyBoard.hash ^= FIELD_KEYS[0][field];
+        }
+        for (long bits = oo; bits != 0; bits &= bits - 1) {
+            int field = fields[Long.numberOfTrailingZeros(bits)];
+            copyBoard.oo |= 1L << field;
+            copyBoard.hash ^= FIELD_KEYS[1][field];
+        }
+        return copyBoard;
+    }
+
+    /**
+     * Finds the symmetry that turns the position of this board into the position of the other board. Boards with
+     * the same canonical hash have such a symmetry.
+     *
+     * @param   other   board with a rotated or mirrored position
+     * @return          number of the symmetry from 0 to 7, or -1 if the positions are not symmetric
+     */
+    public int findSymmetry(Board other) {
+        for (int s = 0; s < SYMMETRIES.length; s++) {
+            if (symmetric(s).equals(other)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the move that has the same effect on a board after the selected symmetry as the packed move on the
+     * board before it.
+     *
+     * @param   packed      packed move
+     * @param   symmetry    number of the symmetry from 0 to 7
+     * @return              packed move on the symmetric board
+     */
+    /*@
+    requires 0 <= packed && packed < Move.COUNT;
+    requires 0 <= symmetry && symmetry < 8;
+    */
+    public static int symmetricMove(int packed, int symmetry) {
+        return SYMMETRIC_MOVES[symmetry][packed];
+    }
+
+    /**
+     * Returns the hash code of the position on the board, based on its Zobrist hash.
+     *
+     * @return      hash code of the board
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
 }
@@ -0,0 +1,190 @@
+package Game;
+
+/**
+ * Move is the class which represents one move in the Pentago game: the field on which a mark is put and the rotation
+ * of a sub-board that follows. The rotation uses the same numbering as <code>Board.rotate</code>.
+ * <p>
+ * Moves are immutable and all 288 of them are created once, so getting a move never creates a new object. Every move
+ * also has a packed form, <code>index * 8 + rotation</code>, which search code can store in primitive arrays.
+ * <p>
+ * The protocol form of a move is the String <code>MOVE~index~rotation</code>. It is only needed when a move is sent
+ * to or read from the server or the user.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     Board
+ */
+public final class Move {
+
+    /**
+     * Number of possible rotations.
+     */
+    public static final int ROTATIONS = 8;
+    /**
+     * Number of different moves on the board.
+     */
+    public static final int COUNT = Board.DIM * Board.DIM * ROTATIONS;
+    /**
+     * Command that starts the protocol form of a move.
+     */
+    private static final String COMMAND = "MOVE";
+    /**
+     * Delimiter of the protocol form of a move.
+     */
+    private static final String DELIM = "~";
+    /**
+     * All possible moves, indexed by their packed form.
+     */
+    private static final Move[] MOVES = new Move[COUNT];
+
+    static {
+        for (int i = 0; i < COUNT; i++) {
+            MOVES[i] = new Move(i / ROTATIONS, i % ROTATIONS);
+        }
+    }
+
+    /**
+     * The field on which the mark is put.
+     */
+    private final int index;
+    /**
+     * The rotation that is made after the mark is put.
+     */
+    private final int rotation;
+
+    /**
+     * Creates a move. It is only used to fill the cache, <code>of</code> and <code>unpack</code> return cached moves.
+     *
+     * @param   index       the field number
+     * @param   rotation    the rotation
+     */
+    private Move(int index, int rotation) {
+        this.index = index;
+        this.rotation = rotation;
+    }
+
+    /**
+     * Returns the move that puts a mark on the selected field and makes the selected rotation.
+     *
+     * @param   index       the field number (see NUMBERING of the board)
+     * @param   rotation    the rotation (see <code>Board.rotate</code>)
+     * @return              the move
+     * @throws  IllegalArgumentException    if the field or the rotation does not exist
+     */
+    /*@
+    requires 0 <= index && index < Board.DIM * Board.DIM;
+    requires 0 <= rotation && rotation < ROTATIONS;
+    */
+    public static Move of(int index, int rotation) {
+        if (index < 0 || index >= Board.DIM * Board.DIM || rotation < 0 || rotation >= ROTATIONS) {
+            throw new IllegalArgumentException("No such move: " + index + DELIM + rotation);
+        }
+        return MOVES[pack(index, rotation)];
+    }
+
+    /**
+     * Returns the move that belongs to the packed form.
+     *
+     * @param   packed  packed form of the move
+     * @return          the move
+     */
+    //@ requires 0 <= packed && packed < COUNT;
+    public static Move unpack(int packed) {
+        return MOVES[packed];
+    }
+
+    /**
+     * Packs the field and the rotation into one int.
+     *
+     * @param   index       the field number
+     * @param   rotation    the rotation
+     * @return              packed form of the move
+     */
+    public static int pack(int index, int rotation) {
+        return index * ROTATIONS + rotation;
+    }
+
+    /**
+     * Returns the field number of a packed move.
+     *
+     * @param   packed  packed form of the move
+     * @return          the field number
+     */
+    public static int index(int packed) {
+        return packed / ROTATIONS;
+    }
+
+    /**
+     * Returns the rotation of a packed move.
+     *
+     * @param   packed  packed form of the move
+     * @return          the rotation
+     */
+    public static int rotation(int packed) {
+        return packed % ROTATIONS;
+    }
+
+    /**
+     * Reads a move from its protocol form <code>MOVE~index~rotation</code>.
+     *
+     * @param   command     the protocol form of the move
+     * @return              the move, or null if the command is not a valid move
+     */
+    public static Move parse(String command) {
+        if (command == null) {
+            return null;
+        }
+        String[] splittedCommand = command.split(DELIM);
+        if (splittedCommand.length != 3 || !splittedCommand[0].equals(COMMAND)) {
+            return null;
+        }
+        try {
+            int index = Integer.parseInt(splittedCommand[1]);
+            int rotation = Integer.parseInt(splittedCommand[2]);
+            if (index < 0 || index >= Board.DIM * Board.DIM || rotation < 0 || rotation >= ROTATIONS) {
+                return null;
+            }
+            return MOVES[pack(index, rotation)];
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the field on which the mark is put.
+     *
+     * @return      the field number
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the rotation that is made after the mark is put.
+     *
+     * @return      the rotation
+     */
+    public int getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Returns the packed form of the move.
+     *
+     * @return      packed form of the move
+     */
+    public int pack() {
+        return pack(index, rotation);
+    }
+
+    /**
+     * Returns the protocol form of the move.
+     *
+     * @return      the move as MOVE~index~rotation
+     */
+    @Override
+    public String toString() {
+        return COMMAND + DELIM + index + DELIM + rotation;
+    }
+
+}
@@ -2,6 +2,7 @@ package Player;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 
 /**
  * Abstract class for the HumanPlayer and BotPlayer classes.
@@ -51,9 +52,9 @@ public abstract class AbstractPlayer {
      * @return            the player's choice
      */
     /*@ requires board != null && board.isFull() == false;
-        ensures board.isField(\result) && board.getField(\result) == Mark.EMPTY;
+        ensures board.isField(\result.getIndex()) && board.getField(\result.getIndex()) == Mark.EMPTY;
     @*/
-    public abstract String[] determineMove(Board board);
+    public abstract Move determineMove(Board board);
 
     /**
      * Makes a move on the board.
@@ -63,11 +64,9 @@ public abstract class AbstractPlayer {
      */
     //@ requires board != null && board.isFull() == false;
     public int makeMove(Board board) {
-        String[] splittedChoice = determineMove(board);
-        int choice = Integer.parseInt(splittedChoice[1]);
-        int rotation = Integer.parseInt(splittedChoice[2]);
-        board.setField(choice, getMark());
-        return rotation;
+        Move choice = determineMove(board);
+        board.setField(choice.getIndex(), getMark());
+        return choice.getRotation();
     }
 
 }
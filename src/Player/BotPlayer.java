@@ -2,6 +2,7 @@ package Player;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 import Strategy.Strategy;
 import Strategy.RandomBot;
 
@@ -38,7 +39,7 @@ public class BotPlayer extends AbstractPlayer {
 
 
     @Override
-    public String[] determineMove(Board board) {
+    public Move determineMove(Board board) {
         return strategy.determineMove(board, mark);
     }
 
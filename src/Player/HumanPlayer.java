@@ -2,6 +2,7 @@ package Player;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 
 import java.io.InputStreamReader;
 import java.util.Scanner;
@@ -28,43 +29,32 @@ public class HumanPlayer extends AbstractPlayer{
     }
 
     /**
-     * Returns a list which has the following structure:
-     * index 0 : MOVE command,
-     * index 1 : move index,
-     * index 2 : rotation index
+     * Reads a move of the form MOVE~index~rotation from the user. Asks again until the move is valid.
      *
      * @param   board   Board object
-     * @return          list of type String
+     * @return          the move of the user
      */
     /*@ requires board != null;
-        ensures board.isField() && board.getField(\result) == Mark.EMPTY;
+        ensures board.isField(\result.getIndex()) && board.getField(\result.getIndex()) == Mark.EMPTY;
     @*/
-    public String[] determineMove(Board board) {
+    public Move determineMove(Board board) {
         String prompt = "> " + getName() + " (" + getMark().toString() + ")"
                 + ", what is your choice? ";
 
         System.out.println(prompt);
         String stringChoice = scanner.nextLine();
-        String[] splittedChoice = stringChoice.split("~");
+        Move choice = Move.parse(stringChoice);
 
-        String command = splittedChoice[0];
-        int choice = Integer.parseInt(splittedChoice[1]);
-        int rotation = Integer.parseInt(splittedChoice[2]);
-
-        boolean valid = rotation >= 0 && rotation < 8 && command.equals("MOVE") && board.isField(choice) && board.isEmptyField(choice);
+        boolean valid = choice != null && board.isEmptyField(choice.getIndex());
         while (!valid) {
             System.out.println("ERROR: " + stringChoice
                     + " is no valid choice.");
             System.out.println(prompt);
             stringChoice = scanner.nextLine();
-            splittedChoice = stringChoice.split("~");
-
-            command = splittedChoice[0];
-            choice = Integer.parseInt(splittedChoice[1]);
-            rotation = Integer.parseInt(splittedChoice[2]);
-            valid = rotation >= 0 && rotation < 8 && command.equals("MOVE") && board.isField(choice) && board.isEmptyField(choice);
+            choice = Move.parse(stringChoice);
+            valid = choice != null && board.isEmptyField(choice.getIndex());
         }
-        return splittedChoice;
+        return choice;
     }
 
 }
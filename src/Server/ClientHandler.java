@@ -3,6 +3,8 @@ package Server;
 import java.io.*;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Handles the client by providing information to the server.
@@ -10,6 +12,10 @@ import java.util.ArrayList;
  * This is accomplished by using several methods like getUsername, setUsername, addClient and removeClient. It also
  * makes sure that the client is removed from the server when they disconnect and the class provides a communication
  * function so that the server is able to send stuff to a client.
+ * <p>
+ * Every <code>ClientHandler</code> reads from its socket on its own thread, which can be a virtual thread. Subclasses can serve the connection in
+ * another way, for example on a selector, by overriding <code>writeLine</code> and <code>close</code> and by
+ * calling <code>connectionClosed</code> or <code>connectionFailed</code> when the connection ends.
  */
 public class ClientHandler implements Runnable{
 
@@ -17,6 +23,7 @@ public class ClientHandler implements Runnable{
 
     private Socket socket;
     private final BufferedWriter out;
+    private final ReentrantLock writeLock = new ReentrantLock();
     private boolean run;
     private ArrayList<String> clients = new ArrayList();
     private String username;
@@ -29,11 +36,34 @@ public class ClientHandler implements Runnable{
      * @throws  IOException
      */
     public ClientHandler(Socket s, ServerImplementation server) throws IOException {
+        this(s, server, task -> new Thread(task).start());
+    }
+
+    /**
+     * New ClientHandler object is created that reads from the socket on a thread of the executor
+     *
+     * @param   s           the socket which connects to server
+     * @param   server      the server itself
+     * @param   executor    executor that runs the handler
+     * @throws  IOException
+     */
+    public ClientHandler(Socket s, ServerImplementation server, Executor executor) throws IOException {
         this.server = server;
         this.socket = s;
         this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
         this.run = true;
-        new Thread(this::run).start();
+        executor.execute(this::run);
+    }
+
+    /**
+     * New ClientHandler object is created for a subclass that reads and writes the connection itself.
+     *
+     * @param   server      the server itself
+     */
+    protected ClientHandler(ServerImplementation server) {
+        this.server = server;
+        this.out = null;
+        this.run = true;
     }
 
     /**
@@ -55,19 +85,62 @@ public class ClientHandler implements Runnable{
                 }
                 nextLine = reader.readLine();
             }
-            server.handleMessage(this, "Connection to " + server.getPort() + " is lost");
+            connectionClosed();
         } catch (IOException e) {
-            System.out.println("Oh no, connection to client " + getUserName() + " is lost");
-            server.removeClientInGame(this);
-            server.removeClient(this);
-            server.handleMessage(this, "DISCONNECT");
-            this.close();
+            connectionFailed();
+        }
+    }
+
+    /**
+     * Returns the server that handles the messages of this client.
+     *
+     * @return      the server
+     */
+    protected ServerImplementation getServer() {
+        return server;
+    }
+
+    /**
+     * Tells the server that the client has closed the connection. The handler is closed and removed from the server.
+     */
+    protected void connectionClosed() {
+        try {
+            server.handleMessage(this, "Connection to " + server.getPort() + " is lost");
         } finally {
             this.close();
             server.removeClient(this);
         }
     }
 
+    /**
+     * Tells the server that the connection to the client is lost. The client is removed from its game and from the
+     * server, the server gets the DISCONNECT message and the handler is closed.
+     */
+    protected void connectionFailed() {
+        System.out.println("Oh no, connection to client " + getUserName() + " is lost");
+        server.removeClientInGame(this);
+        server.removeClient(this);
+        server.handleMessage(this, "DISCONNECT");
+        this.close();
+    }
+
+    /**
+     * Writes one line to the client.
+     *
+     * @param   line    line without the line separator
+     * @throws  IOException if the line could not be written
+     */
+    protected void writeLine(String line) throws IOException {
+        writeLock.lock();
+        try {
+            out.write(line);
+            out.newLine();
+            out.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     /**
      * Checks what the message of the user is and acts accordingly.
      * If the message is PING, PONG is replied. If message contains HELLO, HELLO~Pentago 2D is replied.
@@ -79,21 +152,17 @@ public class ClientHandler implements Runnable{
      * @param   from        the username of the client that sent the message
      * @param   message     the message that was sent by the client
      */
-    public synchronized void sendChat(String from, String message) {
+    public void sendChat(String from, String message) {
         try {
             if (message.equals("PING")) {
                 System.out.println("[" + from + "]: " + message);
                 System.out.println("[SERVER]: PONG");
-                out.write("PONG");
-                out.newLine();
-                out.flush();
+                writeLine("PONG");
             }
             if (message.contains("HELLO")) {
                 System.out.println("[" + from + "]: " + message);
                 System.out.println("[SERVER]: HELLO~Pentago 2D");
-                out.write("HELLO~Pentago 2D");
-                out.newLine();
-                out.flush();
+                writeLine("HELLO~Pentago 2D");
             }
         } catch(IOException e) {
             e.printStackTrace();
@@ -108,9 +177,7 @@ public class ClientHandler implements Runnable{
      */
     public void passString(String string) {
         try {
-            out.write(string);
-            out.newLine();
-            out.flush();
+            writeLine(string);
         } catch (IOException e) {
             e.printStackTrace();
         }
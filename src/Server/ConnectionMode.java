@@ -0,0 +1,21 @@
+package Server;
+
+/**
+ * Ways in which <code>ServerImplementation</code> can serve the connections of its clients.
+ */
+public enum ConnectionMode {
+
+    /**
+     * Every client gets its own thread that blocks on reading its socket
+     */
+    THREAD,
+    /**
+     * Every client gets its own virtual thread, platform threads are used if the JVM has no virtual threads
+     */
+    VIRTUAL_THREAD,
+    /**
+     * One thread serves all clients with a non-blocking selector
+     */
+    NIO
+
+}
@@ -0,0 +1,232 @@
+package Server;
+
+import Game.Board;
+import Game.Mark;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Represents one game on the server between two players.
+ * <p>
+ * Every session has its own board, its two players and the index of the player whose turn it is, so the server
+ * can run many games at the same time. The first player plays with X and starts the game, the second player plays
+ * with O.
+ * <p>
+ * The <code>GameSession</code> checks and performs the MOVE commands of its players and tells them when the game
+ * is over because someone won, the board is full or a player left the game.
+ * <p>
+ * Every session is guarded by its own <code>ReentrantLock</code>, so the moves of one game and the messages they
+ * send never wait for another game. The server only holds its own lock to find the session of a player.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     ServerImplementation
+ */
+public class GameSession {
+
+    private final Board board = new Board();
+    private final List<ClientHandler> players;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int current = 0;
+    private volatile boolean over;
+
+    /**
+     * Creates a new game between two players.
+     *
+     * @param   player1     player with X who makes the first move
+     * @param   player2     player with O
+     */
+    public GameSession(ClientHandler player1, ClientHandler player2) {
+        this.players = List.of(player1, player2);
+    }
+
+    /**
+     * Returns the board of the game.
+     *
+     * @return      board of the game
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns both players of the game, the player with X first.
+     *
+     * @return      players of the game
+     */
+    public List<ClientHandler> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Returns whether the game is over.
+     *
+     * @return      true if the game is over, false otherwise
+     */
+    public boolean isOver() {
+        return over;
+    }
+
+    /**
+     * Handles a MOVE command of a player. The command has to be in the form MOVE~element~rotation with a valid element
+     * and rotation, otherwise an ERROR is sent to the player. If it is the turn of the player and the cell is empty,
+     * the move is sent to both players and performed on the board. If the cell is not empty or it is not the turn of
+     * the player, an ERROR is sent to the player. Before the rotation and after the move, the checkWinner method is
+     * called.
+     *
+     * @param   from        player that sent the command
+     * @param   message     the command itself
+     */
+    public void handleMove(ClientHandler from, String message) {
+        lock.lock();
+        try {
+            processMove(from, message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Handles a MOVE command while the lock of the session is held, see handleMove. A game that is already over
+     * because the other player left it gets an ERROR.
+     *
+     * @param   from        player that sent the command
+     * @param   message     the command itself
+     */
+    private void processMove(ClientHandler from, String message) {
+        if (over) {
+            from.passString("ERROR~No active game");
+            return;
+        }
+        String[] splittedCommand = message.split("~");
+        int index = -1;
+        int rotation = -1;
+        boolean numbers = splittedCommand.length == 3;
+        if (numbers) {
+            try {
+                index = Integer.parseInt(splittedCommand[1]);
+                rotation = Integer.parseInt(splittedCommand[2]);
+            } catch (NumberFormatException e) {
+                numbers = false;
+            }
+        }
+        //error if the user gave more or less parameters or no numbers
+        if (!numbers) {
+            from.passString("ERROR~Wrong parameters");
+        }
+        //error if the user wants to rotate a board that does not exist
+        else if (rotation > 7 || rotation < 0) {
+            from.passString("ERROR~You can only rotate between 0 and 7");
+        }
+        //error if the user wants to place something on an index that does not exist
+        else if (index > 35 || index < 0) {
+            from.passString("ERROR~This is not a position on the board");
+        }
+        else if (!board.gameOver()) {
+            System.out.println("[" + from.getUserName() + "]: " + message);
+            if (players.indexOf(from) != current) {
+                //error when the user wants to make a move while it is not their turn
+                from.passString("ERROR~Not your turn");
+            } else if (!board.isEmptyField(index)) {
+                //error if there is already something on the cell
+                from.passString("ERROR~Cell is not empty");
+            } else {
+                //it is the players turn on an empty cell, so send the message to both players and set the board
+                for (ClientHandler c : players) {
+                    c.passString(message);
+                }
+                board.setField(index, current == 0 ? Mark.XX : Mark.OO);
+                if (!processWinner()) {
+                    board.rotate(rotation);
+                    current = 1 - current;
+                }
+                System.out.println(board.toString());
+            }
+            //check if there is a winner
+            processWinner();
+        }
+    }
+
+    /**
+     * Checks if there is a winner on the board. If X or O is the winner, GAMEOVER~VICTORY~name is passed to both
+     * players with name being the username of the player that won. If the board has no winner but the game is over
+     * (because the board is full), GAMEOVER~DRAW is passed to both players. In all of these cases the game is over
+     * and true is returned. If none of these apply, false is returned.
+     *
+     * @return      true or false, depending on whether there is a winner, a draw, or no winner
+     */
+    public boolean checkWinner() {
+        lock.lock();
+        try {
+            return processWinner();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if there is a winner while the lock of the session is held, see checkWinner.
+     *
+     * @return      true or false, depending on whether there is a winner, a draw, or no winner
+     */
+    private boolean processWinner() {
+        if (over) {
+            return true;
+        }
+        String result = null;
+        if (board.isWinner(Mark.XX)) {
+            result = "GAMEOVER~VICTORY~" + players.get(0).getUserName();
+        } else if (board.isWinner(Mark.OO)) {
+            result = "GAMEOVER~VICTORY~" + players.get(1).getUserName();
+        } else if (board.gameOver()) {
+            result = "GAMEOVER~DRAW";
+        }
+        if (result == null) {
+            return false;
+        }
+        for (ClientHandler c : players) {
+            c.passString(result);
+        }
+        over = true;
+        return true;
+    }
+
+    /**
+     * Ends the game because a player left it. GAMEOVER~DISCONNECT~name is passed to the other player with name being
+     * the username of the other player.
+     *
+     * @param   leaver  player that left the game
+     */
+    public void abandon(ClientHandler leaver) {
+        lock.lock();
+        try {
+            if (over) {
+                return;
+            }
+            for (ClientHandler c : players) {
+                if (c != leaver) {
+                    c.passString("GAMEOVER~DISCONNECT~" + c.getUserName());
+                }
+            }
+            over = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a move for the player that asked for a hint: the first empty field without a rotation.
+     *
+     * @return      hint in the form MOVE~element~rotation
+     */
+    public String hint() {
+        lock.lock();
+        try {
+            return "MOVE~" + board.getEmptyField(0) + "~" + 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package Server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Handles a client whose connection is served by a <code>SelectorLoop</code> instead of its own thread.
+ * <p>
+ * The bytes that arrive on the channel are collected in a small read buffer until a line separator is found, so
+ * every complete line of the protocol is passed to the server like the thread-per-client handler does. The buffer
+ * only grows for long lines, which keeps an idle connection cheap.
+ * <p>
+ * Lines for the client are written directly when the channel accepts them. What does not fit is queued and written
+ * by the selector loop as soon as the channel is writable again.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     SelectorLoop
+ */
+public class NioClientHandler extends ClientHandler {
+
+    private static final int BUFFER_SIZE = 256;
+    private static final int MAX_LINE = 8192;
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(CHARSET);
+
+    private final SocketChannel channel;
+    private final Deque<ByteBuffer> writeQueue = new ArrayDeque<>();
+    private ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private SelectionKey key;
+
+    /**
+     * New NioClientHandler object is created for a non-blocking channel.
+     *
+     * @param   channel     the channel which connects to the server
+     * @param   server      the server itself
+     */
+    public NioClientHandler(SocketChannel channel, ServerImplementation server) {
+        super(server);
+        this.channel = channel;
+    }
+
+    /**
+     * Sets the key with which the channel is registered at the selector.
+     *
+     * @param   key     selection key of the channel
+     */
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Reads the bytes that are available on the channel and passes every complete line to the server. When the
+     * client has closed the connection, the handler is closed and removed from the server.
+     *
+     * @throws  IOException if the channel could not be read or a line is longer than the maximum
+     */
+    void read() throws IOException {
+        if (channel.read(readBuffer) == -1) {
+            connectionClosed();
+            return;
+        }
+        readBuffer.flip();
+        int start = readBuffer.position();
+        for (int i = start; i < readBuffer.limit() && channel.isOpen(); i++) {
+            if (readBuffer.get(i) == '\n') {
+                int end = i > start && readBuffer.get(i - 1) == '\r' ? i - 1 : i;
+                String line = new String(readBuffer.array(), start, end - start, CHARSET);
+                start = i + 1;
+                getServer().handleMessage(this, line);
+            }
+        }
+        readBuffer.position(start);
+        readBuffer.compact();
+        if (!readBuffer.hasRemaining()) {
+            if (readBuffer.capacity() >= MAX_LINE) {
+                throw new IOException("Line is longer than " + MAX_LINE + " bytes");
+            }
+            ByteBuffer larger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+    }
+
+    /**
+     * Writes the queued lines to the channel. When the queue is empty the selector stops waiting until the channel
+     * is writable.
+     *
+     * @throws  IOException if the channel could not be written
+     */
+    synchronized void write() throws IOException {
+        flush();
+        if (writeQueue.isEmpty() && key.isValid()) {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Writes the line directly if the channel accepts it. The rest is queued for the selector loop.
+     *
+     * @param   line    line without the line separator
+     * @throws  IOException if the line could not be written
+     */
+    @Override
+    protected synchronized void writeLine(String line) throws IOException {
+        byte[] bytes = line.getBytes(CHARSET);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + LINE_SEPARATOR.length);
+        buffer.put(bytes).put(LINE_SEPARATOR).flip();
+        writeQueue.add(buffer);
+        flush();
+        if (!writeQueue.isEmpty() && key.isValid()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            key.selector().wakeup();
+        }
+    }
+
+    /**
+     * Writes queued lines until the queue is empty or the channel does not accept more bytes.
+     *
+     * @throws  IOException if the channel could not be written
+     */
+    private void flush() throws IOException {
+        while (!writeQueue.isEmpty()) {
+            ByteBuffer buffer = writeQueue.peek();
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                return;
+            }
+            writeQueue.poll();
+        }
+    }
+
+    /**
+     * Closes the channel, the selector does not serve it anymore.
+     */
+    @Override
+    public void close() {
+        try {
+            if (key != null) {
+                key.cancel();
+            }
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package Server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Serves all connections of the server on one thread with a non-blocking <code>Selector</code>.
+ * <p>
+ * The loop accepts new connections, creates a <code>NioClientHandler</code> for each of them and reads or writes
+ * the channels that are ready. A connection that is only waiting in the lobby costs a selection key and a small
+ * buffer instead of a thread with its own stack, so one server can keep many idle clients.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     NioClientHandler
+ * @see     ConnectionMode
+ */
+public class SelectorLoop implements Runnable {
+
+    private final ServerImplementation server;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * Opens a non-blocking server channel on the port and registers it at a new selector.
+     *
+     * @param   server  the server that handles the messages
+     * @param   port    port of the server, 0 for any free port
+     * @throws  IOException if the channel could not be opened
+     */
+    public SelectorLoop(ServerImplementation server, int port) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Returns the port of the server channel.
+     *
+     * @return      port of the server
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Closes the server channel and wakes up the selector, the loop ends and all clients are disconnected.
+     *
+     * @throws  IOException if the server channel could not be closed
+     */
+    public void close() throws IOException {
+        serverChannel.close();
+        selector.wakeup();
+    }
+
+    /**
+     * Waits for ready channels and serves them until the selector is closed.
+     */
+    @Override
+    public void run() {
+        try {
+            while (serverChannel.isOpen()) {
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    } else {
+                        serve(key);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException e) {
+            System.out.println("The server is closed");
+        } finally {
+            disconnectAll();
+        }
+    }
+
+    /**
+     * Accepts a new connection and registers it for reading.
+     *
+     * @throws  IOException if the connection could not be accepted
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        System.out.println("Got connection from: " + channel.socket().getInetAddress().getHostAddress());
+        channel.configureBlocking(false);
+        NioClientHandler clientHandler = new NioClientHandler(channel, server);
+        clientHandler.setKey(channel.register(selector, SelectionKey.OP_READ, clientHandler));
+        server.addClient(clientHandler);
+    }
+
+    /**
+     * Reads or writes the channel of a client. A failing connection is handled like a lost client. An error while
+     * handling a message of the client only ends the connection of that client, the loop keeps serving the others.
+     *
+     * @param   key     selection key of the client
+     */
+    private void serve(SelectionKey key) {
+        NioClientHandler clientHandler = (NioClientHandler) key.attachment();
+        try {
+            if (key.isValid() && key.isWritable()) {
+                clientHandler.write();
+            }
+            if (key.isValid() && key.isReadable()) {
+                clientHandler.read();
+            }
+        } catch (IOException e) {
+            disconnect(key, clientHandler);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            disconnect(key, clientHandler);
+        }
+    }
+
+    /**
+     * Removes a failing client from the server and stops serving its channel.
+     *
+     * @param   key             selection key of the client
+     * @param   clientHandler   handler of the client
+     */
+    private void disconnect(SelectionKey key, NioClientHandler clientHandler) {
+        try {
+            clientHandler.connectionFailed();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            key.cancel();
+        }
+    }
+
+    /**
+     * Closes the connections of all clients that are still registered and the selector itself.
+     */
+    private void disconnectAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioClientHandler) {
+                ((NioClientHandler) key.attachment()).close();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
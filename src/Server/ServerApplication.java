@@ -8,7 +8,8 @@ import java.util.Scanner;
  * The class that has a main method to start the server.
  * This class asks the user to enter a port on which the server will be started. It will check if the port is available,
  * and if not the user needs to enter another port. It will then use the start method of the ServerImplementation class
- * to fulfill the desired tasks of the server.
+ * to fulfill the desired tasks of the server. The connection mode of the server can be chosen with the first
+ * argument, for example <code>NIO</code>.
  */
 public class ServerApplication {
 
@@ -22,9 +23,17 @@ public class ServerApplication {
      * method of serverImplementation is called. The port is printed to System.out. If someone types QUIT in the
      * System.in of this server, the server will terminate.
      *
-     * @param   args    CLI
+     * @param   args    CLI, the first argument is the connection mode (THREAD, VIRTUAL_THREAD or NIO)
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            try {
+                serverImplementation.setConnectionMode(ConnectionMode.valueOf(args[0].toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Unknown connection mode " + args[0] + ", the server uses "
+                        + serverImplementation.getConnectionMode());
+            }
+        }
         while (true) {
             System.out.println("---WELCOME TO THE SERVER---");
             System.out.println("Give a port number to connect to:");
@@ -40,6 +49,7 @@ public class ServerApplication {
         serverImplementation.start(port);
         actualPort = serverImplementation.getPort();
         System.out.println("The port number is " + actualPort+"\n");
+        System.out.println("Connection mode: " + serverImplementation.getConnectionMode());
         while (true) {
             String input = scanner.nextLine();
             if (input.equals("QUIT")) {
@@ -1,46 +1,86 @@
 package Server;
 
-import Game.Board;
-import Game.Mark;
-
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Provides the fundamental behavior of the server.
  * <p>
- * The class provides a clientHandlerList, clientHandlerListInGame and the board in order to keep track of all users
- * on the server and the users who are participating in the game. It will add clients to these lists when a connection
- * between a client and this server is established. The handleMessage method takes care of all the inputs of the client
+ * The class provides a clientHandlerList and the sessions of the players in order to keep track of all users on the
+ * server and the games they are participating in. Every game is a <code>GameSession</code> with its own board, so
+ * many games can be played at the same time. It will add clients to the list when a connection between a client and
+ * this server is established. The handleMessage method takes care of all the inputs of the client
  * and sends messages back by using the ClientHandler class.
+ * <p>
+ * The connections are served with one thread per client by default. With <code>ConnectionMode.NIO</code> a single
+ * <code>SelectorLoop</code> serves all clients, which lets one server keep many idle connections. With
+ * <code>ConnectionMode.VIRTUAL_THREAD</code> every client gets a virtual thread, if the JVM supports them.
+ * <p>
+ * The state of the server is guarded by a <code>ReentrantLock</code> instead of <code>synchronized</code> methods.
+ * A virtual thread that blocks on writing to a client while it holds the lock can then leave its carrier thread.
+ * The lock only guards the clients, the queue and the sessions of the players. The messages of a game are handled
+ * under the lock of its <code>GameSession</code> after the lock of the server is released, so a slow client only
+ * holds up its own game.
  */
 public class ServerImplementation implements Runnable{
 
     private ServerSocket ss;
+    private SelectorLoop selectorLoop;
     private Thread newThread;
+    private ExecutorService clientExecutor;
+    private ConnectionMode connectionMode = ConnectionMode.THREAD;
+    private final ReentrantLock lock = new ReentrantLock();
 
     private List<ClientHandler> clientHandlerList = new ArrayList<>();
-    private List<ClientHandler> clientHandlerListInGame = new ArrayList<>();
+    private Map<ClientHandler, GameSession> sessions = new HashMap<>();
     private LinkedList<String> queue = new LinkedList<>();
-    private Board board;
-    private int current = 0;
 
     /**
-     * Initializes the ServerSocket and starts new thread on this object.
+     * Returns the way in which the connections of the clients are served.
+     *
+     * @return      connection mode of the server
+     */
+    public ConnectionMode getConnectionMode() {
+        return connectionMode;
+    }
+
+    /**
+     * Sets the way in which the connections of the clients are served. It has to be set before the server is started.
+     *
+     * @param   connectionMode  connection mode of the server
+     */
+    public void setConnectionMode(ConnectionMode connectionMode) {
+        this.connectionMode = connectionMode;
+    }
+
+    /**
+     * Initializes the ServerSocket and starts new thread on this object. In NIO mode the thread runs a
+     * <code>SelectorLoop</code> instead.
      *
      * @param   port    port used to create new server socket
      */
     public void start(int port) {
         try {
-            ss = new ServerSocket(port);
+            if (connectionMode == ConnectionMode.NIO) {
+                selectorLoop = new SelectorLoop(this, port);
+            } else {
+                ss = new ServerSocket(port);
+                clientExecutor = newClientExecutor(connectionMode);
+            }
         } catch (IOException e) {
             System.out.println("Can't connect to the server.");
         }
-        newThread = new Thread(this, "Pentago Server");
+        newThread = new Thread(selectorLoop != null ? selectorLoop : this, "Pentago Server");
         newThread.start();
     }
 
@@ -50,6 +90,9 @@ public class ServerImplementation implements Runnable{
      * @return      port of server
      */
     public int getPort() {
+        if (selectorLoop != null) {
+            return selectorLoop.getPort();
+        }
         return ss.getLocalPort();
     }
 
@@ -58,13 +101,37 @@ public class ServerImplementation implements Runnable{
      */
     public void stop() {
         try {
-            ss.close();
+            if (selectorLoop != null) {
+                selectorLoop.close();
+            } else {
+                ss.close();
+                clientExecutor.shutdown();
+            }
             newThread.join();
         } catch (IOException | InterruptedException e) {
             System.out.println("Can't close the connection.");
         }
     }
 
+    /**
+     * Creates the executor that runs the ClientHandlers. In VIRTUAL_THREAD mode every client gets a new virtual
+     * thread. The executor is looked up by reflection so that the server also runs on a JVM without virtual threads,
+     * in this case and in THREAD mode every client gets a platform thread.
+     *
+     * @param   connectionMode  connection mode of the server
+     * @return                  executor for the ClientHandlers
+     */
+    private static ExecutorService newClientExecutor(ConnectionMode connectionMode) {
+        if (connectionMode == ConnectionMode.VIRTUAL_THREAD) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+                System.out.println("Virtual threads are not available, the server uses platform threads.");
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
+
     /**
      * Accepts sockets to the server and prints that it got a connection. New ClientHandler is created using this socket
      * and ClientHandler is added to a list.
@@ -76,9 +143,9 @@ public class ServerImplementation implements Runnable{
                 Socket s = ss.accept();
                 System.out.println("Got connection from: " + s.getInetAddress().getHostAddress());
 
-                ClientHandler clientHandler = new ClientHandler(s, this);
+                ClientHandler clientHandler = new ClientHandler(s, this, clientExecutor);
 
-                clientHandlerList.add(clientHandler);
+                addClient(clientHandler);
             }
         } catch (IOException e) {
             System.out.println("The server is closed");
@@ -89,28 +156,45 @@ public class ServerImplementation implements Runnable{
      * Handles the messages that are given from the user.
      * If the message equals QUEUE. If the username of the client is not already in the queue, they are added. If
      * the length of the queue is longer than 2, the first two in the queue are put in a game. In this case,
-     * a new game should be started with the first two clients. The ClientHandlers of the two clients that are put into the
-     * game are added to a separate list. The two clients are removed from the queue, they are notified using NEWGAME command,
-     * and a new board is created. If the command is LIST, the client that requested this will get the LIST command returned
+     * a new game should be started with the first two clients. A new GameSession is created for the two clients and stored
+     * for both of them. The two clients are removed from the queue and they are notified using NEWGAME command. A client
+     * that is already in a game gets an ERROR. If the command is LIST, the client that requested this will get the LIST command returned
      * from the server with all usernames of the clients added after this with tilda's. If the message is QUIT, the client
-     * is removed from the server. If the message is MOVE, then this move will be performed on the board object. It first
-     * checks if the board is not null and if the user that uses the MOVE command is in the game. If not, an ERROR is sent
-     * to this user. Then it checks if the input is in the form MOVE~element~rotation. If not, an ERROR is sent to the user.
-     * It will also check if it is the users turn when using this command and if the cell is empty and valid. If this is all
-     * the case, the move is performed. Before and after the rotation, the checkWinner method is called to check if the board
-     * has a winner. In the end, the name of the user and the message are passed to the sendChat method in ClientHandler.
+     * is removed from the server. If the message is MOVE, it first checks if the user that uses the MOVE command is in a
+     * game. If not, an ERROR is sent to this user. Otherwise the GameSession of the user handles the move, and the session
+     * is removed when the game is over. In the end, the name of the user and the message are passed to the sendChat method in ClientHandler.
+     * <p>
+     * The session of a MOVE, HINT or DISCONNECT is looked up under the lock of the server, the session itself
+     * handles the message after that lock is released.
      *
      * @param   from        ClientHandler that gave the message
      * @param   message     the message itself
-     * @throws  IOException
      */
-    public synchronized void handleMessage(ClientHandler from, String message) {
-
-        //check winner each time the method is called in order to check if someone disconnected
-        if (!(board == null)) {
-            checkWinner();
-        }
+    public void handleMessage(ClientHandler from, String message) {
         String userName = from.getUserName();
+        GameSession session;
+        lock.lock();
+        try {
+            session = processMessage(from, message);
+        } finally {
+            lock.unlock();
+        }
+        if (session != null) {
+            handleGameMessage(session, from, message);
+        }
+        //send the message to the user
+        from.sendChat(userName, message);
+    }
+
+    /**
+     * Handles the message while the lock of the server is held, see handleMessage. A message that belongs to the
+     * game of the user is not handled here, its session is returned instead.
+     *
+     * @param   from        ClientHandler that gave the message
+     * @param   message     the message itself
+     * @return              the session that has to handle the message, or null if the message is handled
+     */
+    private GameSession processMessage(ClientHandler from, String message) {
 
         //login the user, send either LOGIN, ERROR or ALREADYLOGGEDIN depending on input of user
         if (message.contains("LOGIN")) {
@@ -149,6 +233,8 @@ public class ServerImplementation implements Runnable{
             //send error if user did not login
             if (from.getUserName().equals("NONAME")) {
                 from.passString("ERROR~You did not login yet");
+            } else if (sessions.containsKey(from)) {
+                from.passString("ERROR~You are already in a game");
             } else {
                 System.out.println("[" + from.getUserName() + "]: " + message);
                 if (!queue.contains(from.getUserName())) {
@@ -164,23 +250,15 @@ public class ServerImplementation implements Runnable{
                     String player2 = queue.get(1);
                     startGame += "~" + player1;
                     startGame += "~" + player2;
-                    for (ClientHandler c : clientHandlerList) {
-                        if (c.getUserName().equals(player1)) {
-                            c.passString(startGame);
-                            clientHandlerListInGame.add(c);
-                        }
-                    }
-                    for (ClientHandler c : clientHandlerList) {
-                        if (c.getUserName().equals(player2)) {
-                            c.passString(startGame);
-                            clientHandlerListInGame.add(c);
-                        }
+                    GameSession session = new GameSession(findClient(player1), findClient(player2));
+                    for (ClientHandler c : session.getPlayers()) {
+                        c.passString(startGame);
+                        sessions.put(c, session);
                     }
                     System.out.println("[SERVER]: " + startGame);
                     System.out.println(player1 + " and " + player2 + " are in a game");
                     queue.pop();
                     queue.pop();
-                    board = new Board();
                 }
             }
         }
@@ -200,159 +278,169 @@ public class ServerImplementation implements Runnable{
             }
         }
 
-        //return a hint for the user
+        //return a hint for the user, the session finds it
         else if (message.equals("HINT")) {
-            boolean valid = false;
-            while (!valid) {
-                int i = 0;
-                if (board.isEmptyField(i)) {
-                    System.out.println("HINT: MOVE~"+i+"~"+0);
-                    from.passString("HINT~MOVE~"+i+"~"+0);
-                    valid = true;
-                } else {
-                    i += 1;
-                }
+            GameSession session = sessions.get(from);
+            if (session == null) {
+                from.passString("ERROR~No active game");
             }
+            return session;
         }
 
         //someone disconnected from the server, if there is a game, then the user that is left over wins
         else if (message.equals("DISCONNECT")) {
-            if (clientHandlerListInGame.size() == 1) {
-                System.out.println("The game will be ended because connection is lost");
-                for (ClientHandler c : clientHandlerListInGame) {
-                    c.passString("GAMEOVER~DISCONNECT~" + c.getUserName());
-                }
-            }
+            return removeSession(from);
         }
 
-        //keeps track of the board and returns in errors when the user does something wrong
+        //the game of the user checks the move and returns errors when the user does something wrong
         else if (message.contains("MOVE")) {
+            GameSession session = sessions.get(from);
             //error if user is not in a game
-            if (board == null || !(clientHandlerListInGame.contains(from))) {
+            if (session == null) {
                 from.passString("ERROR~No active game");
             }
-            //error if the user gave more or less parameters
-            else if (message.split("~").length != 3) {
-                from.passString("ERROR~Wrong parameters");
-            }
-            //error if the user wants to rotate a board that does not exist
-            else if (Integer.parseInt(message.split("~")[2]) > 7 || Integer.parseInt(message.split("~")[2]) < 0) {
-                from.passString("ERROR~You can only rotate between 0 and 7");
-            }
-            //error if the user wants to place something on an index that does not exist
-            else if (Integer.parseInt(message.split("~")[1]) > 35 || Integer.parseInt(message.split("~")[1]) < 0) {
-                from.passString("ERROR~This is not a position on the board");
-            }
-            else if (!board.gameOver()) {
-                String[] splittedCommand = message.split("~");
-                System.out.println("[" + from.getUserName() + "]: " + message);
-                //if it is the players turn, then send the message to all clients in the game and set the board
-                if (from.getUserName().equals(clientHandlerListInGame.get(0).getUserName()) && current == 0) {
-                    for (ClientHandler c : clientHandlerListInGame) {
-                        c.passString(message);
-                    }
-                    if (board.isEmptyField(Integer.parseInt(splittedCommand[1]))) {
-                        board.setField(Integer.parseInt(splittedCommand[1]), Mark.XX);
-                        if (!checkWinner()) {
-                            board.rotate(Integer.parseInt(splittedCommand[2]));
-                            current = 1;
-                        }
-                    } else {
-                        //error if there is already something on the cell
-                        clientHandlerListInGame.get(0).passString("ERROR~Cell is not empty");
-                        current = 0;
-                    }
-                    System.out.println(board.toString());
-                }
-                //if it is the players turn, then send the message to all clients in the game and set the board
-                else if (from.getUserName().equals(clientHandlerListInGame.get(1).getUserName()) && current == 1) {
-                    for (ClientHandler c : clientHandlerListInGame) {
-                        c.passString(message);
-                    }
-                    if (board.isEmptyField(Integer.parseInt(splittedCommand[1]))) {
-                        board.setField(Integer.parseInt(splittedCommand[1]), Mark.OO);
-                        if (!checkWinner()) {
-                            board.rotate(Integer.parseInt(splittedCommand[2]));
-                            current = 0;
-                        }
-                    } else {
-                        //error if there is already something on the cell
-                        clientHandlerListInGame.get(1).passString("ERROR~Cell is not empty");
-                        current = 1;
-                    }
-                    System.out.println(board.toString());
-                } else {
-                    //errors when the user wants to make a move while it is not their turn
-                    if (current == 0) {
-                        clientHandlerListInGame.get(1).passString("ERROR~Not your turn");
-                    }
-                    else if (current == 1) {
-                        clientHandlerListInGame.get(0).passString("ERROR~Not your turn");
+            return session;
+        }
+        return null;
+    }
+
+    /**
+     * Lets the session handle a MOVE, HINT or DISCONNECT of one of its players. The lock of the server is not
+     * held, only the session is locked. A session that is over afterwards is removed for both players.
+     *
+     * @param   session     the session of the user
+     * @param   from        ClientHandler that gave the message
+     * @param   message     the message itself
+     */
+    private void handleGameMessage(GameSession session, ClientHandler from, String message) {
+        if (message.equals("HINT")) {
+            String hint = session.hint();
+            System.out.println("HINT: " + hint);
+            from.passString("HINT~" + hint);
+        } else if (message.equals("DISCONNECT")) {
+            abandon(session, from);
+        } else {
+            session.handleMove(from, message);
+            if (session.isOver()) {
+                lock.lock();
+                try {
+                    for (ClientHandler c : session.getPlayers()) {
+                        sessions.remove(c, session);
                     }
+                } finally {
+                    lock.unlock();
                 }
-                //check if there is a winner or if someone disconnected
-                checkWinner();
             }
         }
-        //send the message to the user
-        from.sendChat(userName, message);
     }
 
     /**
-     * Checks if there is a winner on the board. this is done by using the isWinner, hasWinner and gameOver methods
-     * from class Board. If X is the winner, GAMEOVER~VICTORY~name is passed to the clients in the game with name
-     * being the username of the user that won. If O is the winner, the same is done but then with the name of this
-     * player. If the board has no winner but the game is over (because the board is full), GAMEOVER~DRAW is passed
-     * to the clients in the game. In all of these cases, true is returned. If none of these apply, false is returned.
+     * Returns the ClientHandler of the logged in user with the name.
      *
-     * @return      true or false, depending on whether there is a winner, a draw, or no winner
+     * @param   userName    name of the user
+     * @return              the ClientHandler of the user, or null if nobody has this name
      */
-    public synchronized boolean checkWinner() {
-        if (board.isWinner(Mark.XX)) {
-            for (ClientHandler c : clientHandlerListInGame) {
-                c.passString("GAMEOVER~VICTORY~" + clientHandlerListInGame.get(0).getUserName());
-            }
-            clientHandlerListInGame.clear();
-            return true;
-        } if (board.isWinner(Mark.OO)) {
-            for (ClientHandler c : clientHandlerListInGame) {
-                c.passString("GAMEOVER~VICTORY~" + clientHandlerListInGame.get(1).getUserName());
-            }
-            clientHandlerListInGame.clear();
-            return true;
-        } if (!board.hasWinner() && board.gameOver()) {
-            for (ClientHandler c : clientHandlerListInGame) {
-                c.passString("GAMEOVER~DRAW");
+    private ClientHandler findClient(String userName) {
+        for (ClientHandler c : clientHandlerList) {
+            if (c.getUserName().equals(userName)) {
+                return c;
             }
-            clientHandlerListInGame.clear();
-            return true;
-        } if (clientHandlerListInGame.size() == 1) {
-            System.out.println("The game will be ended because connection is lost");
-            for (ClientHandler c : clientHandlerListInGame) {
-                c.passString("GAMEOVER~DISCONNECT~" + c.getUserName());
+        }
+        return null;
+    }
+
+    /**
+     * Removes the session of the client for both players. It has to be called while the lock of the server is held.
+     *
+     * @param   from    the ClientHandler that leaves its game
+     * @return          the removed session, or null if the client is not in a game
+     */
+    private GameSession removeSession(ClientHandler from) {
+        GameSession session = sessions.get(from);
+        if (session != null) {
+            for (ClientHandler c : session.getPlayers()) {
+                sessions.remove(c, session);
             }
-            clientHandlerListInGame.clear();
         }
-        return false;
+        return session;
     }
 
     /**
-     * Client is removed from the clientHandlerList
+     * Ends the game because the client left it. The other player of the game gets GAMEOVER~DISCONNECT~name. It is
+     * called after the lock of the server is released, so only the session is locked.
+     *
+     * @param   session     the removed session of the client, or null if the client was not in a game
+     * @param   from        the ClientHandler that left its game
+     */
+    private void abandon(GameSession session, ClientHandler from) {
+        if (session == null) {
+            return;
+        }
+        System.out.println("The game will be ended because connection is lost");
+        session.abandon(from);
+    }
+
+    /**
+     * Returns the number of games that are in progress on the server.
+     *
+     * @return      number of active games
+     */
+    public int getActiveGames() {
+        lock.lock();
+        try {
+            return (int) sessions.values().stream().distinct().count();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Client is added to the clientHandlerList
+     *
+     * @param   clientHandler   the ClientHandler of the new connection
+     */
+    public void addClient(ClientHandler clientHandler) {
+        lock.lock();
+        try {
+            clientHandlerList.add(clientHandler);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Client is removed from the clientHandlerList and the queue. If the client is in a game, the game is ended.
      *
      * @param   from    the ClientHandler that needs to be removed
      */
-    public synchronized void removeClient(ClientHandler from) {
-        clientHandlerList.remove(from);
+    public void removeClient(ClientHandler from) {
+        GameSession session;
+        lock.lock();
+        try {
+            clientHandlerList.remove(from);
+            queue.remove(from.getUserName());
+            session = removeSession(from);
+        } finally {
+            lock.unlock();
+        }
+        abandon(session, from);
     }
 
     /**
-     * Client is removed form the clientHandlerListInGame
+     * Client is removed from its game, the other player of the game wins because of the disconnect
      *
      * @param   from    the ClientHandler that needs to be removed
      */
-    public synchronized void removeClientInGame(ClientHandler from) {
-        System.out.println("Client is removed from active game");
-        clientHandlerListInGame.remove(from);
+    public void removeClientInGame(ClientHandler from) {
+        GameSession session;
+        lock.lock();
+        try {
+            System.out.println("Client is removed from active game");
+            session = removeSession(from);
+        } finally {
+            lock.unlock();
+        }
+        abandon(session, from);
     }
 
 }
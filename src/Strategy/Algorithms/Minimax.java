@@ -2,126 +2,326 @@ package Strategy.Algorithms;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A minimax algorithm that can hardly compute the best possible move by brute forcing all possible combinations.
  * Not suitable for the game but useful to find traps that opponent can implement. Also, can be used to find tricky
  * winning moves that MCTS might not recognize.
  * <p>
- * The <code>Minimax</code> contains two methods to find best move in a certain depth.
+ * The search is written in the negamax form with alpha-beta pruning: the score is always computed for the player
+ * to move. An optional <code>TranspositionTable</code> remembers positions that were already searched, it is
+ * consulted before the children of a position are expanded and its best move is tried first. Positions are stored
+ * by their canonical hash, so a rotated or mirrored position finds the entry of the original one. The moves of the
+ * root that lead to symmetric positions are searched only once if the search is deeper than one move.
+ * <p>
+ * The <code>Minimax</code> contains two methods to find the best score or the best move in a certain depth, and one
+ * method that deepens the search step by step until the time budget is spent.
  * <p>
  * The <code>Minimax</code> contains one method to calculate the score for the particular combination.
+ * <p>
+ * After every search for the best move, <code>getStats</code> returns the statistics of the search.
  *
  * @author  Denis Krylov
  * @since   2.0
  * @see     MonteCarloTreeSearch
+ * @see     TranspositionTable
  * @see     Board
  * @see     Mark
  */
 public class Minimax {
 
+    private static final int WIN = 1;
+    private static final int LOSS = -1;
+    /**
+     * Key that is mixed into the hash of the board when O is to move, so both players have their own entries.
+     */
+    private static final long SIDE_KEY = 0x6A09E667F3BCC909L;
+    /**
+     * The clock is read once per this number of searched positions.
+     */
+    private static final int CLOCK_INTERVAL = 1024;
+
     private int depth;
+    private final TranspositionTable table;
+    private int bestMove;
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+    private int completedDepth;
+    private SearchStats stats;
 
     public Minimax(int depth) {
+        this(depth, null);
+    }
+
+    public Minimax(int depth, TranspositionTable table) {
         this.depth = depth;
+        this.table = table;
     }
 
     /**
-     * Returns the best possible move on the current board and selected mark. Represents the
+     * Returns the best score that the selected mark can reach on the current board. Represents the
      * recursive tree with selected depth that plays all possible combinations <em>N</em> moves forward
-     * (<em>N</em> equals depth). Because this function was optimised to work together with MCTS, it returns
-     * a winning move or, if the move wasn't found, an empty array.
+     * (<em>N</em> equals depth). Because this function was optimised to work together with MCTS, it only tells
+     * whether there is a forced result: 1 if the mark can win, -1 if the opponent can force a win and 0 otherwise.
      *
      * @param   board   current board
-     * @param   mark    selected mark
-     * @return          winning move or an empty array
+     * @param   mark    mark to move
+     * @return          1, -1 or 0
      */
     public int findNextMove(Board board, Mark mark) {
-        int move = 0;
-        int rotation = 0;
-        int score = 0;
-        int bestScore = Integer.MIN_VALUE;
-        List<Integer> result = new ArrayList<>();
-        List<Integer> emptyCells = board.getEmptyCells();
-
-        for (Integer emptyCell : emptyCells) {
-            for (int r = 0; r < 8; r++) {
-                board.setField(emptyCell, mark);
-                score = minimax(board, mark.other(), r, depth-1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
-                board.rotateBack(r);
-                board.setField(emptyCell, Mark.EMPTY);
-                if (score > bestScore) {
-                    bestScore = score;
-                    move = emptyCell;
-                    rotation = r;
-                }
-            }
+        return negamax(board, mark, depth, LOSS, WIN, false);
+    }
+
+    /**
+     * Returns the best move for the selected mark on the current board in the selected depth. If several moves
+     * have the same score, the first one is returned.
+     *
+     * @param   board   current board
+     * @param   mark    mark to move
+     * @return          best move or null if the game is already over
+     */
+    public Move findBestMove(Board board, Mark mark) {
+        if (board.gameOver()) return null;
+        long start = System.nanoTime();
+        nodes = 0;
+        bestMove = -1;
+        negamax(board, mark, Math.max(depth, 1), LOSS, WIN, true);
+        recordStats(board, mark, bestMove, 1, Math.max(depth, 1), start);
+        return Move.unpack(bestMove);
+    }
+
+    /**
+     * Finds the best move with iterative deepening. Searches depth 1, 2, 3 and so on, up to the depth of this
+     * <code>Minimax</code>, until the time budget runs out. The search that is running when the time is over is
+     * thrown away and the best move of the deepest completed search is returned. Depth 1 is always completed.
+     * <p>
+     * The transposition table, if there is one, keeps the best moves of the previous depth, so the next depth
+     * tries them first.
+     *
+     * @param   board       current board
+     * @param   mark        mark to move
+     * @param   timeBudget  time budget in milliseconds
+     * @return              best move or null if the game is already over
+     */
+    public Move findBestMove(Board board, Mark mark, long timeBudget) {
+        if (board.gameOver()) return null;
+        long start = System.nanoTime();
+        int maxDepth = Math.max(1, Math.min(depth, Long.bitCount(board.getBitboard(Mark.EMPTY))));
+        int result = -1;
+        completedDepth = 0;
+        nodes = 0;
+        for (int d = 1; d <= maxDepth; d++) {
+            deadline = d == 1 ? 0L : start + timeBudget * 1_000_000L;
+            aborted = false;
+            bestMove = -1;
+            int score = negamax(board, mark, d, LOSS, WIN, true);
+            if (aborted) break;
+            result = bestMove;
+            completedDepth = d;
+            if (score != 0 || System.nanoTime() - start >= timeBudget * 1_000_000L) break;
+        }
+        deadline = 0L;
+        aborted = false;
+        recordStats(board, mark, result, completedDepth, completedDepth, start);
+        return Move.unpack(result);
+    }
+
+    /**
+     * Returns the depth of the deepest search that was completed by the last iterative deepening.
+     *
+     * @return      completed depth
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Returns the statistics of the last search for the best move.
+     *
+     * @return      statistics of the search, or null if no best move was searched yet
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Creates the statistics of the search that has just finished.
+     *
+     * @param   board       current board
+     * @param   mark        mark to move
+     * @param   move        packed best move
+     * @param   iterations  number of completed depths
+     * @param   depth       deepest completed depth
+     * @param   start       value of <code>System.nanoTime</code> at the start of the search
+     */
+    private void recordStats(Board board, Mark mark, int move, int iterations, int depth, long start) {
+        long elapsed = System.nanoTime() - start;
+        stats = new SearchStats("Minimax", iterations, 0, nodes, depth, principalVariation(board, mark, move, depth),
+                Collections.emptyMap(), elapsed);
+    }
+
+    /**
+     * Returns the best move followed by the best moves of the transposition table, up to the selected depth.
+     * The table can hold the move of a symmetric position, so the line stops at the first move that is not legal.
+     *
+     * @param   board   current board
+     * @param   mark    mark to move
+     * @param   move    packed best move
+     * @param   depth   maximum length of the line
+     * @return          principal variation
+     */
+    private List<Move> principalVariation(Board board, Mark mark, int move, int depth) {
+        List<Move> line = new ArrayList<>();
+        while (move >= 0 && line.size() < depth && board.isEmptyField(Move.index(move))) {
+            Move next = Move.unpack(move);
+            line.add(next);
+            board.makeMove(next, mark);
+            mark = mark.other();
+            if (table == null || board.gameOver()) break;
+            long entry = table.probe(key(board, mark));
+            move = entry == 0L ? -1 : TranspositionTable.move(entry);
         }
-        return score;
+        for (int i = 0; i < line.size(); i++) {
+            board.unmakeMove();
+        }
+        return line;
     }
 
     /**
-     * A minimax function itself. It puts a player's mark if <code>maximizingMark</code> is true and opponent mark if
-     * <code>maximizingMark</code> is false in all possible sells with all possible rotations.
+     * Returns the key of the position in the transposition table.
+     *
+     * @param   board   current board
+     * @param   mark    mark to move
+     * @return          key of the position
+     */
+    private static long key(Board board, Mark mark) {
+        return board.canonicalHash() ^ (mark == Mark.OO ? SIDE_KEY : 0L);
+    }
+
+    /**
+     * A negamax function itself. It puts the mark on all empty cells with all possible rotations, computes the
+     * score of every position from the opponent's side and takes every move back with <code>unmakeMove</code>.
      * <p>
-     * If depth for particular combination is 0 tries to evaluate the score by calling <code>calculateScore</code>
-     * function. If the player is winner returns positive score, if opponent is winner returns a negative score.
+     * If the game is over or the depth is 0, evaluates the score by calling <code>calculateScore</code>.
+     * Before the children are expanded the transposition table is consulted: an entry of the same or a bigger
+     * depth may end the search right away, and its best move is tried first.
      * <p>
-     * If depth is not 0, change the value of <code>maximizingMark</code> to opposite and perform the same
-     * operations simulating the game from the opponent's side.
+     * When the deadline has passed the search is aborted: every call returns 0 right away and nothing is stored.
      *
-     * @param   board           current board
-     * @param   mark            selected mark
-     * @param   rotation        selected rotation
-     * @param   depth           computational depth
-     * @param   alpha           best evaluation for the player
-     * @param   beta            best evaluation for the opponent
-     * @param   maximizingMark  current player to compute (opponent if false)
-     * @return                  score of the move
+     * @param   board   current board
+     * @param   mark    mark to move
+     * @param   depth   computational depth
+     * @param   alpha   best evaluation for the mark to move
+     * @param   beta    best evaluation for the opponent
+     * @param   root    true if the best move has to be remembered
+     * @return          score of the position for the mark to move
      */
-    private int minimax(Board board, Mark mark, int rotation, int depth, int alpha, int beta, boolean maximizingMark) {
-
-        int score1 = calculateScore(board, mark.other());
-        board.rotate(rotation);
-        int score2 = calculateScore(board, mark.other());
-        if (board.hasWinner() || depth == 0) return Math.max(score1, score2);
-
-        if (maximizingMark) {
-            int maxEval = Integer.MIN_VALUE;
-            List<Integer> emptyCells = board.getEmptyCells();
-            if (emptyCells.isEmpty()) return 0;
-            for (Integer emptyCell : emptyCells) {
-                for (int r = 0; r < 8; r++) {
-                    board.setField(emptyCell, mark);
-                    int eval = minimax(board, mark.other(), r, depth - 1, alpha, beta, false);
-                    board.rotateBack(r);
-                    board.setField(emptyCell, Mark.EMPTY);
-                    maxEval = Math.max(alpha, eval);
-                    alpha = Math.max(alpha, eval);
-                    if (beta <= alpha) break;
+    private int negamax(Board board, Mark mark, int depth, int alpha, int beta, boolean root) {
+        nodes++;
+        if (deadline != 0L && nodes % CLOCK_INTERVAL == 0 && System.nanoTime() > deadline) aborted = true;
+        if (aborted) return 0;
+        long emptyCells = board.getBitboard(Mark.EMPTY);
+        if (board.hasWinner() || emptyCells == 0 || depth == 0) return calculateScore(board, mark);
+
+        int alphaOrig = alpha;
+        long key = 0L;
+        int firstMove = -1;
+        if (table != null) {
+            key = key(board, mark);
+            long entry = table.probe(key);
+            if (entry != 0L) {
+                // the entry can come from a symmetric position, so its move is only a hint and has to be legal here
+                firstMove = TranspositionTable.move(entry);
+                if (firstMove >= 0 && (emptyCells & 1L << Move.index(firstMove)) == 0) {
+                    firstMove = -1;
+                }
+                if (!root && TranspositionTable.depth(entry) >= depth) {
+                    int score = TranspositionTable.score(entry);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT) return score;
+                    if (bound == TranspositionTable.LOWER) alpha = Math.max(alpha, score);
+                    if (bound == TranspositionTable.UPPER) beta = Math.min(beta, score);
+                    if (alpha >= beta) return score;
                 }
             }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            List<Integer> emptyCells = board.getEmptyCells();
-            if (emptyCells.isEmpty()) return 0;
-            for (Integer emptyCell : emptyCells) {
-                for (int r = 0; r < 8; r++) {
-                    board.setField(emptyCell, mark);
-                    int eval = -1 * minimax(board, mark.other(), r, depth - 1, alpha, beta, true);
-                    board.rotateBack(r);
-                    board.setField(emptyCell, Mark.EMPTY);
-                    minEval = Math.min(minEval, eval);
-                    beta = Math.min(beta, eval);
-                    if (beta <= alpha) break;
+        }
+
+        int bestScore = Integer.MIN_VALUE;
+        int best = -1;
+        // at depth 1 the children are only scored, which is cheaper than finding the symmetric ones
+        Set<Long> positions = root && depth > 1 ? new HashSet<>() : null;
+        if (firstMove >= 0) {
+            if (positions != null) isNewPosition(board, mark, firstMove, positions);
+            bestScore = searchMove(board, mark, firstMove, depth, alpha, beta);
+            best = firstMove;
+            alpha = Math.max(alpha, bestScore);
+        }
+        while (emptyCells != 0 && alpha < beta) {
+            int emptyCell = Long.numberOfTrailingZeros(emptyCells);
+            emptyCells &= emptyCells - 1;
+            for (int r = 0; r < Move.ROTATIONS && alpha < beta; r++) {
+                int move = Move.pack(emptyCell, r);
+                if (move == firstMove) continue;
+                if (positions != null && !isNewPosition(board, mark, move, positions)) continue;
+                int eval = searchMove(board, mark, move, depth, alpha, beta);
+                if (eval > bestScore) {
+                    bestScore = eval;
+                    best = move;
                 }
+                alpha = Math.max(alpha, eval);
             }
-            return minEval;
         }
+
+        if (aborted) return 0;
+        if (root) bestMove = best;
+        if (table != null) {
+            int bound = bestScore <= alphaOrig ? TranspositionTable.UPPER
+                    : bestScore >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(key, depth, bestScore, bound, best);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Makes the move and remembers the canonical hash of the new position.
+     *
+     * @param   board       current board
+     * @param   mark        mark to move
+     * @param   move        packed move
+     * @param   positions   canonical hashes of the positions that were already searched
+     * @return              true if neither the position nor a symmetric one was searched before
+     */
+    private boolean isNewPosition(Board board, Mark mark, int move, Set<Long> positions) {
+        board.makeMove(Move.unpack(move), mark);
+        boolean unique = positions.add(board.canonicalHash());
+        board.unmakeMove();
+        return unique;
+    }
+
+    /**
+     * Makes the move, searches the position from the opponent's side and takes the move back.
+     *
+     * @param   board   current board
+     * @param   mark    mark to move
+     * @param   move    packed move
+     * @param   depth   computational depth of the current position
+     * @param   alpha   best evaluation for the mark to move
+     * @param   beta    best evaluation for the opponent
+     * @return          score of the move for the mark to move
+     */
+    private int searchMove(Board board, Mark mark, int move, int depth, int alpha, int beta) {
+        board.makeMove(Move.unpack(move), mark);
+        int eval = -negamax(board, mark.other(), depth - 1, -beta, -alpha, false);
+        board.unmakeMove();
+        return eval;
     }
 
     /**
@@ -129,7 +329,7 @@ public class Minimax {
      * <ul>
      *     <li>if the player is winner : +1</li>
      *     <li>if the opponent is winner : -1</li>
-     *     <li>if there is a tie : 0</li>
+     *     <li>if there is a tie or both have five in a row : 0</li>
      * </ul>
      *
      * @param   board   current board
@@ -137,7 +337,10 @@ public class Minimax {
      * @return          score
      */
     private int calculateScore(Board board, Mark mark) {
-        if (board.isWinner(mark)) return 1;
+        boolean won = board.isWinner(mark);
+        boolean lost = board.isWinner(mark.other());
+        if (won && !lost) return WIN;
+        if (lost && !won) return LOSS;
         return 0;
     }
 
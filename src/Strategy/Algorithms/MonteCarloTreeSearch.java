@@ -2,15 +2,47 @@ package Strategy.Algorithms;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Monte Carlo Tree Search (MCTS) is a search technique in the field of Artificial Intelligence (AI).
  * It is a probabilistic and heuristic driven search algorithm that combines the classic tree search implementations
  * alongside machine learning principles of reinforcement learning.
  * <p>
- * The <code>MonteCarloTreeSearch</code> contains two methods to set or get difficulty level.
+ * The <code>MonteCarloTreeSearch</code> contains two methods to set or get difficulty level. Instead of the level,
+ * the search can also get a thinking time: then it runs until the time is over or until the hard cap of iterations
+ * is reached. The number of iterations that actually ran can be requested after every search.
+ * <p>
+ * The search can run on several threads in root parallel mode: every thread builds an independent tree on a
+ * <code>ForkJoinPool</code> and the visits of the root children are merged before the move is chosen. In tree
+ * parallel mode all threads search in one shared tree instead. Independent of both modes, several random games
+ * can be played in parallel from every selected leaf. The moves of the random games are chosen by a
+ * <code>RolloutPolicy</code>, uniformly at random by default.
+ * <p>
+ * Instead of <code>Node</code> objects the tree can be stored in a <code>NodePool</code> of primitive arrays.
+ * <p>
+ * The tree is kept between searches: when the position after our move and the reply of the opponent is found
+ * in it, that subtree becomes the root of the next search. While the opponent thinks, the search can go on in
+ * this tree on a background thread (pondering).
+ * <p>
+ * After every search, <code>getStats</code> returns the statistics of the search: the size and depth of the tree,
+ * the principal variation and the visits of the root moves.
  * <p>
  * The <code>MonteCarloTreeSearch</code> contains one method to find the best possible move (probably) using 4 phases:
  * selection, expansion, simulation and backpropagation.
@@ -25,11 +57,48 @@ import java.util.List;
  * @see     Node
  * @see     UCT
  * @see     State
+ * @see     NodePool
  */
 public class MonteCarloTreeSearch {
 
     private static final int WIN_SCORE = 10;
+    private static final int VIRTUAL_LOSS = 1;
+    /**
+     * Default hard cap of iterations for the search with a thinking time.
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 200000;
+    /**
+     * Default maximum number of nodes of the <code>NodePool</code>. Its arrays start small and grow when needed.
+     */
+    public static final int DEFAULT_POOL_CAPACITY = 1 << 21;
+    /**
+     * Board of the current thread on which the random games are played, so a random game creates no objects.
+     */
+    private static final ThreadLocal<Board> ROLLOUT_BOARD = ThreadLocal.withInitial(Board::new);
+    /**
+     * Minimax of the current thread that looks for an instant win before every random game.
+     */
+    private static final ThreadLocal<Minimax> ROLLOUT_MINIMAX = ThreadLocal.withInitial(() -> new Minimax(1));
     private int level;
+    private long thinkTime;
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+    private int iterations;
+    private int threads = 1;
+    private Parallelism parallelism = Parallelism.ROOT;
+    private int rollouts = 1;
+    private RolloutPolicy rolloutPolicy = new RandomRolloutPolicy();
+    private Set<Long> rootPositions;
+    private long searchStart;
+    private SearchStats stats;
+    private boolean pooled;
+    private int poolCapacity = DEFAULT_POOL_CAPACITY;
+    private NodePool nodePool;
+    private boolean treeFull;
+    private Tree tree;
+    private boolean reuseTree = true;
+    private volatile boolean pondering;
+    private Thread ponderThread;
+    private ForkJoinPool pool;
     private Mark opponent;
 
     public MonteCarloTreeSearch(int level) {
@@ -54,130 +123,965 @@ public class MonteCarloTreeSearch {
         this.level = level;
     }
 
+    /**
+     * Returns the thinking time of the MCTS in milliseconds, 0 if the difficulty level is used.
+     *
+     * @return      thinking time in milliseconds
+     */
+    public long getThinkTime() {
+        return thinkTime;
+    }
+
+    /**
+     * Sets the thinking time of the MCTS. If it is bigger than 0, the search runs until the time is over instead
+     * of 10000 * level iterations, but never more than the hard cap of iterations.
+     *
+     * @param   thinkTime   thinking time in milliseconds, 0 to use the difficulty level
+     */
+    public void setThinkTime(long thinkTime) {
+        this.thinkTime = thinkTime;
+    }
+
+    /**
+     * Returns the hard cap of iterations for the search with a thinking time.
+     *
+     * @return      maximum number of iterations
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Sets the hard cap of iterations for the search with a thinking time. It keeps the memory of the tree
+     * bounded on fast machines.
+     *
+     * @param   maxIterations   maximum number of iterations
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Returns the number of threads of the search.
+     *
+     * @return      number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads of the search. With more than one thread the search is root parallel by default:
+     * every thread builds its own tree and the results are merged. The iterations of the difficulty level, or the
+     * hard cap of iterations with a thinking time, are divided between the trees, so root and tree parallelism do
+     * the same number of iterations in total.
+     *
+     * @param   threads     number of threads
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Returns the way in which the search uses more than one thread.
+     *
+     * @return      root or tree parallelism
+     */
+    public Parallelism getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the way in which the search uses more than one thread. It only matters if there is more than one
+     * thread.
+     *
+     * @param   parallelism     root or tree parallelism
+     */
+    public void setParallelism(Parallelism parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the number of random games that are played from every selected leaf.
+     *
+     * @return      number of rollouts per leaf
+     */
+    public int getRollouts() {
+        return rollouts;
+    }
+
+    /**
+     * Sets the number of random games that are played in parallel from every selected leaf. Their results are
+     * back propagated at once, so the cost of selection and expansion is shared by all of them.
+     *
+     * @param   rollouts    number of rollouts per leaf
+     */
+    public void setRollouts(int rollouts) {
+        this.rollouts = Math.max(1, Math.min(rollouts, 0xFFFF));
+    }
+
+    /**
+     * Returns the policy that chooses the moves of the random games.
+     *
+     * @return      rollout policy
+     */
+    public RolloutPolicy getRolloutPolicy() {
+        return rolloutPolicy;
+    }
+
+    /**
+     * Sets the policy that chooses the moves of the random games. The policy is shared by all threads.
+     *
+     * @param   rolloutPolicy   rollout policy
+     */
+    public void setRolloutPolicy(RolloutPolicy rolloutPolicy) {
+        this.rolloutPolicy = rolloutPolicy;
+    }
+
+    /**
+     * Returns true if the search stores its tree in a <code>NodePool</code>.
+     *
+     * @return      true if the pooled search is used
+     */
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    /**
+     * Selects whether the search stores its tree in a <code>NodePool</code> of primitive arrays instead of
+     * <code>Node</code> objects. The pool grows with the tree and is reused by every search. The pooled search
+     * runs on one thread with one rollout per leaf.
+     *
+     * @param   pooled  true to use the pooled search
+     */
+    public void setPooled(boolean pooled) {
+        this.pooled = pooled;
+    }
+
+    /**
+     * Sets the maximum number of nodes of the <code>NodePool</code>. When the pool is full, leaves are not expanded
+     * anymore and the statistics of the search tell that the tree was full.
+     *
+     * @param   poolCapacity    maximum number of nodes
+     */
+    public void setPoolCapacity(int poolCapacity) {
+        this.poolCapacity = poolCapacity;
+    }
+
+    /**
+     * Returns the tree of the last search. Its root is the position after the chosen move. There is no tree after
+     * a root parallel or a pooled search.
+     *
+     * @return      tree of the last search or null
+     */
+    public Tree getTree() {
+        return tree;
+    }
+
+    /**
+     * Selects whether the search continues in the tree of the previous search. If the current board is found in
+     * that tree under the chosen move, the subtree and all its statistics are kept. Root parallel and pooled
+     * searches always start with a new tree.
+     *
+     * @param   reuseTree   true to reuse the tree
+     */
+    public void setReuseTree(boolean reuseTree) {
+        this.reuseTree = reuseTree;
+        if (!reuseTree) {
+            tree = null;
+        }
+    }
+
+    /**
+     * Returns the number of iterations that ran during the last search.
+     *
+     * @return      number of iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the statistics of the last search.
+     *
+     * @return      statistics of the search, or null if there was no search yet
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
     /**
      * Finds the next possible moves using MCTS algorithm. At first, it selects the node with the best UCT score.
      * Then, if the game is not finished, expand this node by creating all possible states of the board and attach
      * them to the node. After that it gets a random child node from the child array and play a random game from
      * the state of this node. Then depending on the game result it back propagates to the root node changing parameters
-     * of all connected nodes. It does it 1000 * level times (level is the difficulty level of the bot).
+     * of all connected nodes. It does it 10000 * level times (level is the difficulty level of the bot), or, if
+     * the thinking time is set, until the time is over or the hard cap of iterations is reached.
      *
      * @param   board   original board
      * @param   mark    playing mark
      * @return          best state with changed board
      */
     public Board findNextMove(Board board, Mark mark) {
+        return findNextMove(board, mark, null);
+    }
+
+    /**
+     * Finds the next possible move like <code>findNextMove(board, mark)</code>, but only the candidate moves
+     * become children of the root. The tree of the previous search is not reused in that case, because it can
+     * contain other moves.
+     *
+     * @param   board       original board
+     * @param   mark        playing mark
+     * @param   candidates  moves that may be chosen, or null to search all moves
+     * @return              best state with changed board
+     */
+    public Board findNextMove(Board board, Mark mark, List<Move> candidates) {
+        stopPondering();
         opponent = mark.other();
-        Tree tree = new Tree();
-        Node rootNode = tree.getRoot();
-        rootNode.getState().setBoard(board);
-        rootNode.getState().setMark(opponent);
+        rootPositions = null;
+        if (candidates != null) {
+            rootPositions = new HashSet<>();
+            Board candidateBoard = board.deepCopy();
+            for (Move candidate : candidates) {
+                candidateBoard.makeMove(candidate, mark);
+                rootPositions.add(candidateBoard.canonicalHash());
+                candidateBoard.unmakeMove();
+            }
+            tree = null;
+        }
+        boolean timed = thinkTime > 0;
+        int limit = timed ? maxIterations : level * 10000;
+        searchStart = System.nanoTime();
+        long deadline = searchStart + thinkTime * 1_000_000L;
+        if (pooled) {
+            tree = null;
+            return findNextMovePooled(board, mark, limit, timed, deadline);
+        }
+        if (threads > 1 && parallelism == Parallelism.ROOT) {
+            tree = null;
+            return findNextMoveRootParallel(board, limit, timed, deadline);
+        }
+
+        Node rootNode = findReusableRoot(board);
+        if (rootNode == null) {
+            rootNode = createRoot(board, opponent);
+        }
+        tree = new Tree(rootNode);
+        if (threads > 1) {
+            iterations = searchTreeParallel(rootNode, limit, timed, deadline);
+        } else {
+            iterations = search(rootNode, limit, timed, deadline);
+        }
 
-        for (int i = 0; i < level * 10000; i++) {
-            // Phase 1 - Selection
-            Node promisingNode = selectPromisingNode(rootNode);
+        Node winnerNode = rootNode.getChildWithMaxScore();
+        stats = treeStats(List.of(rootNode), winnerNode.getState().getBoard());
+        tree.setRoot(winnerNode);
+        return winnerNode.getState().getBoard();
+    }
+
+    /**
+     * Finds the node of the tree of the previous search that has the same position as the board, so its
+     * statistics can be used again. The root of the tree is the position after our last move, so the position
+     * after the reply of the opponent is one of its children. Replies that lead to rotated or mirrored positions
+     * share one child, so the child is found by the canonical hash and its subtree is turned into the position of
+     * the board if the reply was a symmetric one. The found node is cut off from its parent and becomes the new
+     * root.
+     *
+     * @param   board   original board
+     * @return          node with the same position and the opponent as last mover, or null if there is none
+     */
+    private Node findReusableRoot(Board board) {
+        if (!reuseTree || tree == null) {
+            return null;
+        }
+        Node root = tree.getRoot();
+        tree = null;
+        long key = board.canonicalHash();
+        for (Node child : root.getChildArray()) {
+            Board childBoard = child.getState().getBoard();
+            if (child.getState().getMark() != opponent || childBoard.canonicalHash() != key) {
+                continue;
+            }
+            int symmetry = childBoard.findSymmetry(board);
+            if (symmetry < 0) {
+                continue;
+            }
+            if (symmetry != 0) {
+                child.applySymmetry(symmetry);
+            }
+            child.setParent(null);
+            return child;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the next move with root parallelization. Every thread builds its own tree from the same board, so the
+     * trees share nothing. When all threads are done, the visits of the root children with the same board are
+     * added up over all trees and the board with the most visits is chosen. The limit of iterations is divided
+     * between the trees.
+     *
+     * @param   board       original board
+     * @param   limit       maximum number of iterations of all trees together
+     * @param   timed       true if the search stops at the deadline
+     * @param   deadline    value of <code>System.nanoTime</code> at which the search stops
+     * @return              best state with changed board
+     */
+    private Board findNextMoveRootParallel(Board board, int limit, boolean timed, long deadline) {
+        ForkJoinPool pool = getPool();
+        List<ForkJoinTask<Node>> tasks = new ArrayList<>();
+        int[] treeIterations = new int[threads];
+        for (int i = 0; i < threads; i++) {
+            int index = i;
+            int treeLimit = Math.max(1, limit / threads + (i < limit % threads ? 1 : 0));
+            tasks.add(pool.submit(() -> {
+                Node rootNode = createRoot(board, opponent);
+                treeIterations[index] = search(rootNode, treeLimit, timed, deadline);
+                return rootNode;
+            }));
+        }
 
-            // Phase 2 - Expansion
-            if (!promisingNode.getState().getBoard().gameOver()) {
-                expandNode(promisingNode);
+        Map<Board, Integer> visits = new HashMap<>();
+        List<Node> rootNodes = new ArrayList<>();
+        iterations = 0;
+        for (int i = 0; i < threads; i++) {
+            Node rootNode = tasks.get(i).join();
+            rootNodes.add(rootNode);
+            iterations += treeIterations[i];
+            for (Node child : rootNode.getChildArray()) {
+                visits.merge(child.getState().getBoard(), child.getState().getVisitCount(), Integer::sum);
             }
+        }
 
-            // Phase 3 - Simulation
-            Node nodeToExplore = promisingNode;
-            if (promisingNode.getChildArray().size() > 0) {
-                nodeToExplore = promisingNode.getRandomChildNode();
+        Board winnerBoard = null;
+        int maxVisits = -1;
+        for (Map.Entry<Board, Integer> entry : visits.entrySet()) {
+            if (entry.getValue() > maxVisits) {
+                maxVisits = entry.getValue();
+                winnerBoard = entry.getKey();
             }
-            Mark gameResult = simulateRandomGame(nodeToExplore);
+        }
+        if (winnerBoard == null) {
+            throw new NoSuchElementException();
+        }
+        stats = treeStats(rootNodes, winnerBoard);
+        return winnerBoard;
+    }
 
-            // Phase 4 - Backpropagation
-            backPropagation(nodeToExplore, gameResult);
+    /**
+     * Creates the statistics of a search with <code>Node</code> objects. With root parallelization there are
+     * several trees: their nodes are counted together and the visits of the same root moves are added up. The
+     * principal variation goes through the tree in which the chosen child has the most visits.
+     *
+     * @param   rootNodes   roots of all trees of the search
+     * @param   winnerBoard board of the chosen child
+     * @return              statistics of the search
+     */
+    private SearchStats treeStats(List<Node> rootNodes, Board winnerBoard) {
+        long elapsed = System.nanoTime() - searchStart;
+        long nodes = 0;
+        int maxDepth = 0;
+        Map<Move, Integer> rootVisits = new LinkedHashMap<>();
+        Node winnerNode = null;
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        for (Node rootNode : rootNodes) {
+            for (Node child : rootNode.getChildArray()) {
+                rootVisits.merge(Move.unpack(child.getMove()), child.getState().getVisitCount(), Integer::sum);
+                if (child.getState().getBoard().equals(winnerBoard) && (winnerNode == null
+                        || child.getState().getVisitCount() > winnerNode.getState().getVisitCount())) {
+                    winnerNode = child;
+                }
+            }
+            stack.push(rootNode);
+            depths.push(0);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                int depth = depths.pop();
+                nodes++;
+                maxDepth = Math.max(maxDepth, depth);
+                for (Node child : node.getChildArray()) {
+                    stack.push(child);
+                    depths.push(depth + 1);
+                }
+            }
         }
 
-        Node winnerNode = rootNode.getChildWithMaxScore();
-        tree.setRoot(winnerNode);
-        return winnerNode.getState().getBoard();
+        List<Move> principalVariation = new ArrayList<>();
+        for (Node node = winnerNode; node != null; ) {
+            principalVariation.add(Move.unpack(node.getMove()));
+            node = node.getChildArray().isEmpty() ? null : node.getChildWithMaxScore();
+        }
+        return new SearchStats("MCTS", iterations, (long) iterations * rollouts, nodes, maxDepth,
+                principalVariation, rootVisits, elapsed);
+    }
+
+    /**
+     * Searches with tree parallelization. All threads search in the same tree until together they have
+     * done the limit of iterations or, if the search is timed, until the deadline has passed. Virtual loss keeps the
+     * threads from following the same path.
+     *
+     * @param   rootNode    root node of the tree
+     * @param   limit       maximum number of iterations of all threads together
+     * @param   timed       true if the search stops at the deadline
+     * @param   deadline    value of <code>System.nanoTime</code> at which the search stops
+     * @return              number of iterations that ran
+     */
+    private int searchTreeParallel(Node rootNode, int limit, boolean timed, long deadline) {
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        ForkJoinPool pool = getPool();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(pool.submit(() -> {
+                while (started.getAndIncrement() < limit) {
+                    iterate(rootNode, true);
+                    completed.incrementAndGet();
+                    if (timed && System.nanoTime() - deadline >= 0) break;
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return completed.get();
     }
 
     /**
-     * Selects the node with the highest UCT value.
+     * Creates the root node of a new tree. The root gets its own copy of the board, so later changes of the
+     * original board do not affect the tree.
+     *
+     * @param   board   original board
+     * @param   mark    mark that made the last move
+     * @return          root node
+     */
+    private Node createRoot(Board board, Mark mark) {
+        Node rootNode = new Node();
+        rootNode.getState().setBoard(board.deepCopy());
+        rootNode.getState().setMark(mark);
+        if (rootPositions != null) {
+            rootNode.setUntriedMoves(filterRootMoves(rootNode.getState()));
+        }
+        return rootNode;
+    }
+
+    /**
+     * Returns the moves of the root state that lead to one of the positions of the candidate moves.
+     *
+     * @param   state   state of the root
+     * @return          packed moves of the candidates
+     */
+    private int[] filterRootMoves(State state) {
+        Board board = state.getBoard().deepCopy();
+        int[] moves = state.getUntriedMoves();
+        int count = 0;
+        for (int move : moves) {
+            board.makeMove(Move.unpack(move), state.getOpponent());
+            if (rootPositions.contains(board.canonicalHash())) {
+                moves[count++] = move;
+            }
+            board.unmakeMove();
+        }
+        return Arrays.copyOf(moves, count);
+    }
+
+    /**
+     * Starts to search on a background thread while the opponent thinks about its move. The search continues in
+     * the tree of the last search if its root has the position of the board, otherwise a new tree is started.
+     * When the next search starts, it finds the reply of the opponent in this tree and keeps all statistics.
+     * Pondering stops by itself at the hard cap of iterations.
+     *
+     * @param   board   board after our move
+     * @param   mark    our mark
+     */
+    public synchronized void startPondering(Board board, Mark mark) {
+        stopPondering();
+        if (pooled || !reuseTree || (threads > 1 && parallelism == Parallelism.ROOT) || board.gameOver()) {
+            return;
+        }
+        opponent = mark.other();
+        // the candidate moves of the last search were ours, the ponder root is expanded with the opponent's moves
+        rootPositions = null;
+        Node rootNode = tree == null ? null : tree.getRoot();
+        if (rootNode == null || rootNode.getState().getMark() != mark
+                || !rootNode.getState().getBoard().equals(board)) {
+            rootNode = createRoot(board, mark);
+        }
+        rootNode.setParent(null);
+        tree = new Tree(rootNode);
+
+        Node ponderRoot = rootNode;
+        pondering = true;
+        ponderThread = new Thread(() -> {
+            for (int i = 0; i < maxIterations && pondering; i++) {
+                iterate(ponderRoot, false);
+            }
+        }, "MCTS-ponder");
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    /**
+     * Stops the search on the background thread and waits until it has finished its last iteration.
+     */
+    public synchronized void stopPondering() {
+        pondering = false;
+        if (ponderThread != null) {
+            try {
+                ponderThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ponderThread = null;
+        }
+    }
+
+    /**
+     * Runs the four phases of MCTS on the tree until the limit of iterations is reached or, if the search is timed,
+     * until the deadline has passed.
+     *
+     * @param   rootNode    root node of the tree
+     * @param   limit       maximum number of iterations
+     * @param   timed       true if the search stops at the deadline
+     * @param   deadline    value of <code>System.nanoTime</code> at which the search stops
+     * @return              number of iterations that ran
+     */
+    private int search(Node rootNode, int limit, boolean timed, long deadline) {
+        int iterations = 0;
+        while (iterations < limit) {
+            iterate(rootNode, false);
+            iterations++;
+            if (timed && System.nanoTime() - deadline >= 0) break;
+        }
+        return iterations;
+    }
+
+    /**
+     * Runs one iteration of the four phases of MCTS. With the virtual loss, every node on the selected path gets a
+     * virtual loss until the result is back propagated, so other threads in the same tree prefer other paths.
+     * The expansion creates only one new child, so the tree grows with the number of iterations and not with the
+     * number of possible moves. A thread that finds no untried move left simulates from the selected node.
+     *
+     * @param   rootNode    root node of the tree
+     * @param   virtualLoss true if the tree is shared with other threads
+     */
+    private void iterate(Node rootNode, boolean virtualLoss) {
+        // Phase 1 - Selection
+        Node promisingNode = selectPromisingNode(rootNode, virtualLoss);
+
+        // Phase 2 - Expansion
+        Node nodeToExplore = promisingNode;
+        if (!promisingNode.getState().getBoard().gameOver()) {
+            Node child = expandNode(promisingNode);
+            if (child != null) {
+                nodeToExplore = child;
+            }
+        }
+
+        // Phase 3 - Simulation
+        int wins = rollouts > 1 ? simulateRandomGames(nodeToExplore) : winsOf(simulateRandomGame(nodeToExplore));
+
+        // Phase 4 - Backpropagation
+        backPropagation(nodeToExplore, rollouts, wins);
+        if (virtualLoss) {
+            for (Node node = promisingNode; node != null; node = node.getParent()) {
+                node.getState().addVirtualLoss(-VIRTUAL_LOSS);
+            }
+        }
+    }
+
+    /**
+     * Finds the next move with the tree stored in the <code>NodePool</code>. Only one board is used for the whole
+     * search: every iteration replays the moves from the root to the selected node with <code>makeMove</code>,
+     * plays the random game on the same board and takes all moves back with <code>unmakeMove</code>.
+     *
+     * @param   board       original board
+     * @param   mark        playing mark
+     * @param   limit       maximum number of iterations
+     * @param   timed       true if the search stops at the deadline
+     * @param   deadline    value of <code>System.nanoTime</code> at which the search stops
+     * @return              best state with changed board
+     */
+    private Board findNextMovePooled(Board board, Mark mark, int limit, boolean timed, long deadline) {
+        if (nodePool == null || nodePool.capacity() != poolCapacity) {
+            nodePool = new NodePool(poolCapacity);
+        }
+        nodePool.clear();
+        treeFull = false;
+        Board searchBoard = board.deepCopy();
+        int rootNode = nodePool.add(NodePool.NONE, NodePool.NONE, searchBoard.canonicalHash());
+        Minimax minimax = new Minimax(1);
+
+        iterations = 0;
+        while (iterations < limit) {
+            iteratePooled(searchBoard, rootNode, minimax);
+            iterations++;
+            if (timed && System.nanoTime() - deadline >= 0) break;
+        }
+
+        int winnerNode = NodePool.NONE;
+        for (int child = nodePool.getFirstChild(rootNode); child != NodePool.NONE;
+             child = nodePool.getNextSibling(child)) {
+            if (winnerNode == NodePool.NONE || nodePool.getVisits(child) > nodePool.getVisits(winnerNode)) {
+                winnerNode = child;
+            }
+        }
+        if (winnerNode == NodePool.NONE) {
+            throw new NoSuchElementException();
+        }
+        Board winnerBoard = board.deepCopy();
+        winnerBoard.makeMove(Move.unpack(nodePool.getMove(winnerNode)), mark);
+        stats = poolStats(rootNode, winnerNode);
+        return winnerBoard;
+    }
+
+    /**
+     * Creates the statistics of a search in the <code>NodePool</code>. A child is always added after its parent,
+     * so the depth of every node is known when the pool is walked in order of the indexes.
+     *
+     * @param   rootNode    index of the root node
+     * @param   winnerNode  index of the chosen child
+     * @return              statistics of the search
+     */
+    private SearchStats poolStats(int rootNode, int winnerNode) {
+        long elapsed = System.nanoTime() - searchStart;
+        int[] depths = new int[nodePool.size()];
+        int maxDepth = 0;
+        for (int node = rootNode + 1; node < nodePool.size(); node++) {
+            depths[node] = depths[nodePool.getParent(node)] + 1;
+            maxDepth = Math.max(maxDepth, depths[node]);
+        }
+
+        Map<Move, Integer> rootVisits = new LinkedHashMap<>();
+        for (int child = nodePool.getFirstChild(rootNode); child != NodePool.NONE;
+             child = nodePool.getNextSibling(child)) {
+            rootVisits.put(Move.unpack(nodePool.getMove(child)), nodePool.getVisits(child));
+        }
+
+        List<Move> principalVariation = new ArrayList<>();
+        for (int node = winnerNode; node != NodePool.NONE; ) {
+            principalVariation.add(Move.unpack(nodePool.getMove(node)));
+            int best = NodePool.NONE;
+            for (int child = nodePool.getFirstChild(node); child != NodePool.NONE;
+                 child = nodePool.getNextSibling(child)) {
+                if (best == NodePool.NONE || nodePool.getVisits(child) > nodePool.getVisits(best)) {
+                    best = child;
+                }
+            }
+            node = best;
+        }
+        // the pooled search plays one random game per iteration
+        return new SearchStats("MCTS", iterations, iterations, nodePool.size(), maxDepth,
+                principalVariation, rootVisits, elapsed, treeFull);
+    }
+
+    /**
+     * Runs one iteration of the four phases of MCTS on the tree in the <code>NodePool</code>. The board is the
+     * position of the root before and after the iteration.
+     *
+     * @param   board       board with the position of the root
+     * @param   rootNode    index of the root node
+     * @param   minimax     minimax that looks for an instant win in the random game
+     */
+    private void iteratePooled(Board board, int rootNode, Minimax minimax) {
+        int node = rootNode;
+        int depth = 0;
+        Mark mark = opponent;
+
+        // Phase 1 - Selection, a full tree cannot grow, so every node with children is selected through
+        while ((treeFull || nodePool.getTriedMoves(node) == Move.COUNT) && nodePool.getChildCount(node) != 0) {
+            node = findBestChildWithUCT(node);
+            mark = mark.other();
+            board.makeMove(Move.unpack(nodePool.getMove(node)), mark);
+            depth++;
+        }
+
+        // Phase 2 - Expansion
+        int child = board.gameOver() ? NodePool.NONE : expandPooled(board, node, mark.other());
+        if (child != NodePool.NONE) {
+            node = child;
+            mark = mark.other();
+            board.makeMove(Move.unpack(nodePool.getMove(node)), mark);
+            depth++;
+        }
+
+        // Phase 3 - Simulation
+        Mark gameResult = simulatePooled(board, node, mark, minimax);
+
+        // Phase 4 - Backpropagation
+        for (int tempNode = node; tempNode != NodePool.NONE; tempNode = nodePool.getParent(tempNode)) {
+            nodePool.addVisits(tempNode, 1);
+            if (mark == gameResult) {
+                nodePool.addScore(tempNode, WIN_SCORE);
+            }
+            mark = mark.other();
+        }
+        for (int i = 0; i < depth; i++) {
+            board.unmakeMove();
+        }
+    }
+
+    /**
+     * Finds the child with the highest UCT value in the <code>NodePool</code>.
+     *
+     * @param   node    index of the parent node
+     * @return          index of the child with the highest UCT value
+     */
+    private int findBestChildWithUCT(int node) {
+        int parentVisit = nodePool.getVisits(node);
+        int bestChild = nodePool.getFirstChild(node);
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = bestChild; child != NodePool.NONE; child = nodePool.getNextSibling(child)) {
+            double value = UCT.uctValue(parentVisit, nodePool.getScore(child), nodePool.getVisits(child));
+            if (value > bestValue) {
+                bestValue = value;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Adds one child for the next untried move of the node in the <code>NodePool</code>, like
+     * <code>Node.expandChild</code> does for the object tree. The moves are tried in the order of their packed form,
+     * starting at a place that depends on the hash of the node, so the children of different nodes are not created
+     * in the same order. Moves on occupied fields are skipped, and so are duplicates and symmetric positions of
+     * existing children, which are found by the canonical hash of the board. The root only gets the positions of
+     * the candidate moves, if there are any. If the pool is full, no child is added and the tree is marked as full.
+     *
+     * @param   board   board with the position of the node
+     * @param   node    index of the node
+     * @param   mark    mark to move
+     * @return          index of the new child, or NONE if all moves have been tried or the pool is full
+     */
+    private int expandPooled(Board board, int node, Mark mark) {
+        boolean root = nodePool.getParent(node) == NodePool.NONE;
+        int offset = (int) Long.remainderUnsigned(nodePool.getKey(node), Move.COUNT);
+        long emptyCells = board.getBitboard(Mark.EMPTY);
+        int tried = nodePool.getTriedMoves(node);
+        while (tried < Move.COUNT) {
+            int move = (offset + tried) % Move.COUNT;
+            tried++;
+            if ((emptyCells & 1L << Move.index(move)) == 0) {
+                continue;
+            }
+            board.makeMove(Move.unpack(move), mark);
+            long key = board.canonicalHash();
+            board.unmakeMove();
+            if ((rootPositions == null || !root || rootPositions.contains(key)) && !hasChild(node, key)) {
+                int child = nodePool.add(node, move, key);
+                if (child == NodePool.NONE) {
+                    treeFull = true;
+                    tried--;
+                }
+                nodePool.setTriedMoves(node, tried);
+                return child;
+            }
+        }
+        nodePool.setTriedMoves(node, tried);
+        return NodePool.NONE;
+    }
+
+    /**
+     * Checks if the node already has a child with the position.
+     *
+     * @param   node    index of the node
+     * @param   key     canonical hash of the position
+     * @return          true if a child has the same hash
+     */
+    private boolean hasChild(int node, long key) {
+        for (int child = nodePool.getFirstChild(node); child != NodePool.NONE; child = nodePool.getNextSibling(child)) {
+            if (nodePool.getKey(child) == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Simulates a random game on the board like <code>simulateRandomGame</code>, but plays the moves on the board
+     * itself and takes them back afterwards.
+     *
+     * @param   board   board with the position of the node
+     * @param   node    index of the node
+     * @param   mark    mark that made the last move
+     * @param   minimax minimax that looks for an instant win
+     * @return          a result of the random game
+     */
+    private Mark simulatePooled(Board board, int node, Mark mark, Minimax minimax) {
+        if (board.isWinner(opponent)) {
+            int parent = nodePool.getParent(node);
+            if (parent != NodePool.NONE) {
+                nodePool.setScore(parent, Integer.MIN_VALUE);
+            }
+            return opponent;
+        }
+
+        Mark toMove = mark.other();
+        int score = minimax.findNextMove(board, toMove);
+        if (score == 1) {
+            return toMove;
+        } else if (score == -1) {
+            return toMove.other();
+        }
+
+        int emptyCells = Long.bitCount(board.getBitboard(Mark.EMPTY));
+        Mark result = playRandomGame(board, mark);
+        for (int i = Long.bitCount(board.getBitboard(Mark.EMPTY)); i < emptyCells; i++) {
+            board.unmakeMove();
+        }
+        return result;
+    }
+
+    /**
+     * Plays random moves with <code>makeMove</code> until the game is over. A finished game is not played on.
+     * Every move puts one mark, so the number of moves that were made is the number of fields that are no longer
+     * empty. The moves are chosen by the rollout policy with the random generator of the current thread.
+     *
+     * @param   board   board on which the game is played
+     * @param   mark    mark that made the last move
+     * @return          a result of the random game
+     */
+    private Mark playRandomGame(Board board, Mark mark) {
+        if (board.hasWinner()) return opponent.other();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long emptyCells = board.getBitboard(Mark.EMPTY);
+        while (emptyCells != 0) {
+            mark = mark.other();
+            board.makeMove(Move.unpack(rolloutPolicy.selectMove(board, mark, random)), mark);
+            if (board.isWinner(opponent)) return opponent;
+            if (board.isWinner(opponent.other())) return opponent.other();
+            emptyCells = board.getBitboard(Mark.EMPTY);
+        }
+        return opponent.other();
+    }
+
+    /**
+     * Returns the pool of the parallel search. It is created when it is needed for the first time and again
+     * when the number of threads or rollouts has changed. Its worker threads are daemon threads.
+     *
+     * @return      pool with one worker per thread or per rollout
+     */
+    private synchronized ForkJoinPool getPool() {
+        int parallelism = Math.max(threads, rollouts);
+        if (pool == null || pool.getParallelism() != parallelism) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Selects the node with the highest UCT value. The selection stops at the first node that still has untried
+     * moves, so its children are created before UCT chooses between them.
      *
      * @param   rootNode    root node
+     * @param   virtualLoss true if a virtual loss is added to every node on the path
      * @return              node with the highest UCT value
      */
-    private Node selectPromisingNode(Node rootNode) {
+    private Node selectPromisingNode(Node rootNode, boolean virtualLoss) {
         Node node = rootNode;
-        while (node.getChildArray().size() != 0) {
+        if (virtualLoss) node.getState().addVirtualLoss(VIRTUAL_LOSS);
+        while (node.isFullyExpanded() && node.getChildCount() != 0) {
             node = UCT.findBestNodeWithUCT(node);
+            if (virtualLoss) node.getState().addVirtualLoss(VIRTUAL_LOSS);
         }
         return node;
     }
 
     /**
-     * Adds a child array of all possible states of the board to the current node.
+     * Adds one child for a random untried move to the current node. Only the positions that are visited get a node,
+     * the other moves are kept as packed numbers until the node is selected again.
      *
      * @param   node    current node
+     * @return          new child node, or null if all moves of the node have been tried
      */
-    private void expandNode(Node node) {
-        List<State> possibleStates = node.getState().getAllPossibleStates();
-        for (State state : possibleStates) {
-            Node newNode = new Node(state);
-            newNode.setParent(node);
-            newNode.getState().setMark(node.getState().getOpponent());
-            node.getChildArray().add(newNode);
-        }
+    private Node expandNode(Node node) {
+        return node.expandChild();
     }
 
     /**
      * Back propagates to the root node and incrementing the number of visits to the node and adding win score.
+     * The result of several rollouts is back propagated at once: every node gets one visit per rollout and the
+     * win score of every rollout that was won by its mark.
      *
      * @param   nodeToExplore   child node to explore
-     * @param   mark            playing mark
+     * @param   visits          number of rollouts
+     * @param   wins            wins of X in the low 16 bits and wins of O in the high 16 bits
      */
-    private void backPropagation(Node nodeToExplore, Mark mark) {
+    private void backPropagation(Node nodeToExplore, int visits, int wins) {
         Node tempNode = nodeToExplore;
         while (tempNode != null) {
-            tempNode.getState().incrementVisit();
-            if (tempNode.getState().getMark() == mark) {
-                tempNode.getState().addScore(WIN_SCORE);
+            tempNode.getState().addVisits(visits);
+            int markWins = tempNode.getState().getMark() == Mark.XX ? wins & 0xFFFF : wins >>> 16;
+            if (markWins > 0) {
+                tempNode.getState().addScore(WIN_SCORE * markWins);
             }
             tempNode = tempNode.getParent();
         }
     }
 
+    /**
+     * Plays several random games from the same node in parallel. One game is played by the calling thread, the
+     * others by the pool.
+     *
+     * @param   node    child node
+     * @return          wins of X in the low 16 bits and wins of O in the high 16 bits
+     */
+    private int simulateRandomGames(Node node) {
+        ForkJoinPool pool = getPool();
+        List<ForkJoinTask<Mark>> tasks = new ArrayList<>(rollouts - 1);
+        for (int i = 1; i < rollouts; i++) {
+            tasks.add(pool.submit(() -> simulateRandomGame(node)));
+        }
+        int wins = winsOf(simulateRandomGame(node));
+        for (ForkJoinTask<Mark> task : tasks) {
+            wins += winsOf(task.join());
+        }
+        return wins;
+    }
+
+    /**
+     * Packs the winner of one random game into the form that <code>backPropagation</code> uses.
+     *
+     * @param   winner  mark of the winner
+     * @return          1 if X won, 1 in the high 16 bits if O won
+     */
+    private static int winsOf(Mark winner) {
+        return winner == Mark.XX ? 1 : 1 << 16;
+    }
+
     /**
      * Simulates a random game on the selected node and returns the winner. It starts to use Minimax first, to avoid
      * critical traps that opponent can do. If there is no instant winning or losing, it uses a random game.
      * If the winner is a player, returns a player's mark, if the winner is an opponent returns an opponent's mark.
      * If no one, returns a player's mark by default.
+     * <p>
+     * The game is played on the board of the current thread, the node itself is not copied or changed.
      *
      * @param   node    child node
      * @return          a result of the random game
      */
     private Mark simulateRandomGame(Node node) {
-        Node tempNode = new Node(node);
-        State tempState = tempNode.getState();
-        Board board = tempState.getBoard();
-        Minimax minimax = new Minimax(1);
-
-        if (board.isWinner(opponent)) {
-            tempNode.getParent().getState().setWinScore(Integer.MIN_VALUE);
+        State state = node.getState();
+        if (state.getBoard().isWinner(opponent)) {
+            node.getParent().getState().setWinScore(Integer.MIN_VALUE);
             return opponent;
         }
 
-        int score = minimax.findNextMove(board, opponent);
+        Board board = ROLLOUT_BOARD.get();
+        board.copyFrom(state.getBoard());
+        Mark toMove = state.getOpponent();
+        int score = ROLLOUT_MINIMAX.get().findNextMove(board, toMove);
         if (score == 1) {
-            return opponent.other();
+            return toMove;
         } else if (score == -1) {
-            return opponent;
-        } else {
-            while (!board.gameOver()) {
-                tempState.toggleMark();
-                tempState.randomPlay();
-                if (board.isWinner(opponent)) return opponent;
-                if (board.isWinner(opponent.other())) return opponent.other();
-            }
+            return toMove.other();
         }
-
-        return opponent.other();
+        return playRandomGame(board, state.getMark());
     }
 
 }
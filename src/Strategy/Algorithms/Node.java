@@ -1,15 +1,25 @@
 package Strategy.Algorithms;
 
+import Game.Board;
+
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents the node in the decision tree which is the part of MCTS algorithm.
  * <p>
- * The <code>Node</code> contains six methods to get or set state, parent or child array for the node.
+ * The <code>Node</code> contains nine methods to get or set state, parent or children for the node.
  * <p>
  * The <code>Node</code> contains one method that chooses random child node.
  * <p>
  * The <code>Node</code> contains one method that chooses child node with maximum score.
+ * <p>
+ * The <code>Node</code> contains two methods that expand the node lazily. The moves of the node are generated
+ * once and kept as a list of untried moves, every expansion creates only one child from a random untried move.
+ * The children are kept in an array that gets room for all moves of the node at the first expansion, and a new
+ * child is published by raising the number of children, so other threads never see a half-added child.
+ * <p>
+ * The <code>Node</code> contains one method that rotates or mirrors the positions of a subtree.
  *
  * @author  Denis Krylov
  * @since   2.0
@@ -18,34 +28,49 @@ import java.util.*;
  * @see     MonteCarloTreeSearch
  */
 public class Node {
+
+    /**
+     * Move of a node that is not reached by a move, like the root.
+     */
+    public static final int NO_MOVE = -1;
+
+    private static final int[] NO_MOVES = new int[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
     State state;
     Node parent;
-    List<Node> childArray;
+    private volatile Node[] children = NO_CHILDREN;
+    private volatile int childCount;
+    private int move = NO_MOVE;
+    private int[] untriedMoves;
+    private volatile int untriedCount;
 
     public Node() {
         this.state = new State();
-        childArray = new ArrayList<>();
     }
 
     public Node(State state) {
         this.state = state;
-        childArray = new ArrayList<>();
     }
 
     public Node(State state, Node parent, List<Node> childArray) {
         this.state = state;
         this.parent = parent;
-        this.childArray = childArray;
+        setChildArray(childArray);
     }
 
     public Node(Node node) {
-        this.childArray = new ArrayList<>();
         this.state = new State(node.getState());
+        this.move = node.move;
+        synchronized (node) {
+            this.untriedMoves = node.untriedMoves == null ? null : node.untriedMoves.clone();
+            this.untriedCount = node.untriedCount;
+        }
         if (node.getParent() != null)
             this.parent = node.getParent();
-        List<Node> childArray = node.getChildArray();
-        for (Node child : childArray) {
-            this.childArray.add(new Node(child));
+        for (Node child : node.getChildArray()) {
+            addChild(new Node(child));
         }
     }
 
@@ -86,12 +111,14 @@ public class Node {
     }
 
     /**
-     * Returns the array of child nodes
+     * Returns the child nodes that are published so far. The list is a read-only view of the children, it does
+     * not copy them.
      *
      * @return      array of child nodes
      */
     public List<Node> getChildArray() {
-        return childArray;
+        int count = childCount;
+        return Collections.unmodifiableList(Arrays.asList(children).subList(0, count));
     }
 
     /**
@@ -99,8 +126,138 @@ public class Node {
      *
      * @param   childArray  array of nodes
      */
-    public void setChildArray(List<Node> childArray) {
-        this.childArray = childArray;
+    public synchronized void setChildArray(List<Node> childArray) {
+        children = childArray.toArray(NO_CHILDREN);
+        childCount = children.length;
+    }
+
+    /**
+     * Returns the number of child nodes that are published so far.
+     *
+     * @return      number of children
+     */
+    public int getChildCount() {
+        return childCount;
+    }
+
+    /**
+     * Returns the child node at the selected position.
+     *
+     * @param   index   position of the child, smaller than <code>getChildCount</code>
+     * @return          child node
+     */
+    public Node getChild(int index) {
+        return children[index];
+    }
+
+    /**
+     * Adds the child node after the other children.
+     *
+     * @param   child   child node
+     */
+    public synchronized void addChild(Node child) {
+        append(child, 1);
+    }
+
+    /**
+     * Puts the child after the other children and publishes it. If the array is full, it gets room for the child
+     * and the selected number of children that may follow, so it grows only once while the node is expanded.
+     * Readers get the number of children first, so they only see children that are complete.
+     *
+     * @param   child   child node
+     * @param   room    number of children including this one for which the array should have room
+     */
+    private void append(Node child, int room) {
+        int count = childCount;
+        Node[] children = this.children;
+        if (count == children.length) {
+            children = Arrays.copyOf(children, count + Math.max(room, count));
+            this.children = children;
+        }
+        children[count] = child;
+        childCount = count + 1;
+    }
+
+    /**
+     * Returns the packed move that leads from the parent to the current node.
+     *
+     * @return      packed move, or NO_MOVE if the node was not created by an expansion
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * Sets the moves from which the children of the node are created instead of all moves of its state. It has to
+     * be called before the node is expanded for the first time.
+     *
+     * @param   moves   packed moves that lead to unique positions
+     */
+    public synchronized void setUntriedMoves(int[] moves) {
+        untriedMoves = moves.clone();
+        untriedCount = moves.length;
+    }
+
+    /**
+     * Returns true if the moves of the node were generated and a child was created for each of them.
+     *
+     * @return      true if the node has no untried moves left
+     */
+    public boolean isFullyExpanded() {
+        return untriedCount == 0 && untriedMoves != null;
+    }
+
+    /**
+     * Creates one child from a random untried move and adds it to the child array. The untried moves are generated
+     * by the first call. Only one thread expands the node at a time.
+     *
+     * @return      new child node, or null if there are no untried moves left
+     */
+    public synchronized Node expandChild() {
+        if (untriedMoves == null) {
+            untriedMoves = state.getUntriedMoves();
+            untriedCount = untriedMoves.length;
+        }
+        int count = untriedCount;
+        if (count == 0) {
+            return null;
+        }
+        int selected = ThreadLocalRandom.current().nextInt(count);
+        int move = untriedMoves[selected];
+        untriedMoves[selected] = untriedMoves[--count];
+        untriedCount = count;
+        if (count == 0) {
+            untriedMoves = NO_MOVES;
+        }
+
+        Node child = new Node(state.play(move));
+        child.parent = this;
+        child.move = move;
+        append(child, count + 1);
+        return child;
+    }
+
+    /**
+     * Changes the node and all its descendants to the positions after the selected symmetry of the board, so a
+     * subtree that was built for a rotated or mirrored position can be used for the position itself. The moves
+     * that lead to the nodes and the untried moves change with them, the statistics stay the same. No other
+     * thread may search in the subtree at the same time.
+     *
+     * @param   symmetry    number of the symmetry from 0 to 7
+     */
+    public synchronized void applySymmetry(int symmetry) {
+        state.setBoard(state.getBoard().symmetric(symmetry));
+        if (move != NO_MOVE) {
+            move = Board.symmetricMove(move, symmetry);
+        }
+        if (untriedMoves != null) {
+            for (int i = 0; i < untriedCount; i++) {
+                untriedMoves[i] = Board.symmetricMove(untriedMoves[i], symmetry);
+            }
+        }
+        for (int i = 0; i < childCount; i++) {
+            children[i].applySymmetry(symmetry);
+        }
     }
 
     /**
@@ -109,9 +266,9 @@ public class Node {
      * @return      random node
      */
     public Node getRandomChildNode() {
-        int noOfPossibleMoves = this.childArray.size();
-        int selectRandom = (int) (Math.random() * noOfPossibleMoves);
-        return this.childArray.get(selectRandom);
+        int noOfPossibleMoves = childCount;
+        int selectRandom = ThreadLocalRandom.current().nextInt(noOfPossibleMoves);
+        return children[selectRandom];
     }
 
     /**
@@ -121,7 +278,7 @@ public class Node {
      * @return      node in the child array with the highest score
      */
     public Node getChildWithMaxScore() throws NoSuchElementException {
-            return Collections.max(childArray, Comparator.comparing(c -> c.getState().getVisitCount()));
+            return Collections.max(getChildArray(), Comparator.comparing(c -> c.getState().getVisitCount()));
     }
 
 }
@@ -0,0 +1,277 @@
+package Strategy.Algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Represents a whole MCTS tree in parallel primitive arrays instead of <code>Node</code> objects. A node is just an
+ * index in the arrays: its visits, win score, parent, first child, next sibling, number of children, the packed
+ * move that leads to it, the number of moves its expansion has tried and the hash of its position. The children
+ * of a node are linked from its first child through their next siblings, so a node can get its children one at a
+ * time.
+ * <p>
+ * The arrays start small and grow when they are full, until the maximum number of nodes is reached. They are kept
+ * for the next search, so after the first searches the search does not create garbage for its tree. The node does
+ * not store its board: the search replays the moves from the root with <code>makeMove</code> and takes them back
+ * with <code>unmakeMove</code>.
+ * <p>
+ * The <code>NodePool</code> contains one method to add a node as the child of another node.
+ * <p>
+ * The <code>NodePool</code> contains methods to get or change the statistics of a node.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     MonteCarloTreeSearch
+ * @see     Node
+ */
+public class NodePool {
+
+    /**
+     * Index of a node or a move that does not exist.
+     */
+    public static final int NONE = -1;
+    /**
+     * Number of nodes for which the arrays are allocated at first.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final int capacity;
+    private int[] visits;
+    private double[] scores;
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private short[] childCounts;
+    private short[] moves;
+    private short[] triedMoves;
+    private long[] keys;
+    private int size;
+
+    /**
+     * Creates a pool that can hold the selected number of nodes. Only a small part of it is allocated at first.
+     *
+     * @param   capacity    maximum number of nodes
+     */
+    public NodePool(int capacity) {
+        this.capacity = capacity;
+        int length = Math.min(capacity, INITIAL_CAPACITY);
+        visits = new int[length];
+        scores = new double[length];
+        parents = new int[length];
+        firstChildren = new int[length];
+        nextSiblings = new int[length];
+        childCounts = new short[length];
+        moves = new short[length];
+        triedMoves = new short[length];
+        keys = new long[length];
+    }
+
+    /**
+     * Returns the maximum number of nodes of the pool.
+     *
+     * @return      capacity of the pool
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of nodes in the pool.
+     *
+     * @return      number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all nodes from the pool. The arrays are kept for the next search.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a new node without children and statistics. A node with a parent becomes its first child.
+     *
+     * @param   parent  index of the parent node, NONE for the root
+     * @param   move    packed move that leads to the node, NONE for the root
+     * @param   key     hash of the position of the node
+     * @return          index of the new node, or NONE if the pool is full
+     */
+    public int add(int parent, int move, long key) {
+        if (size == keys.length && !grow()) {
+            return NONE;
+        }
+        int node = size++;
+        visits[node] = 0;
+        scores[node] = 0;
+        parents[node] = parent;
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        childCounts[node] = 0;
+        moves[node] = (short) move;
+        triedMoves[node] = 0;
+        keys[node] = key;
+        if (parent != NONE) {
+            nextSiblings[node] = firstChildren[parent];
+            firstChildren[parent] = node;
+            childCounts[parent]++;
+        }
+        return node;
+    }
+
+    /**
+     * Doubles the length of the arrays, but not over the capacity of the pool.
+     *
+     * @return      true if the arrays got longer
+     */
+    private boolean grow() {
+        int length = (int) Math.min(capacity, 2L * keys.length);
+        if (length == keys.length) {
+            return false;
+        }
+        visits = Arrays.copyOf(visits, length);
+        scores = Arrays.copyOf(scores, length);
+        parents = Arrays.copyOf(parents, length);
+        firstChildren = Arrays.copyOf(firstChildren, length);
+        nextSiblings = Arrays.copyOf(nextSiblings, length);
+        childCounts = Arrays.copyOf(childCounts, length);
+        moves = Arrays.copyOf(moves, length);
+        triedMoves = Arrays.copyOf(triedMoves, length);
+        keys = Arrays.copyOf(keys, length);
+        return true;
+    }
+
+    /**
+     * Returns the number of visits of the node.
+     *
+     * @param   node    index of the node
+     * @return          number of visits
+     */
+    public int getVisits(int node) {
+        return visits[node];
+    }
+
+    /**
+     * Adds the number of visits to the node.
+     *
+     * @param   node    index of the node
+     * @param   visits  visits to add
+     */
+    public void addVisits(int node, int visits) {
+        this.visits[node] += visits;
+    }
+
+    /**
+     * Returns the win score of the node.
+     *
+     * @param   node    index of the node
+     * @return          win score
+     */
+    public double getScore(int node) {
+        return scores[node];
+    }
+
+    /**
+     * Sets the win score of the node.
+     *
+     * @param   node    index of the node
+     * @param   score   win score
+     */
+    public void setScore(int node, double score) {
+        scores[node] = score;
+    }
+
+    /**
+     * Adds the win score to the node if the score of the node is not the minimum possible.
+     *
+     * @param   node    index of the node
+     * @param   score   score to add
+     */
+    public void addScore(int node, double score) {
+        if (scores[node] != Integer.MIN_VALUE) {
+            scores[node] += score;
+        }
+    }
+
+    /**
+     * Returns the parent of the node.
+     *
+     * @param   node    index of the node
+     * @return          index of the parent, or NONE for the root
+     */
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * Returns the first child of the node, that is the child that was added last.
+     *
+     * @param   node    index of the node
+     * @return          index of the first child, or NONE if the node has no children
+     */
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    /**
+     * Returns the next child of the parent of the node.
+     *
+     * @param   node    index of the node
+     * @return          index of the next sibling, or NONE if the node is the last child
+     */
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    /**
+     * Returns the number of children of the node.
+     *
+     * @param   node    index of the node
+     * @return          number of children
+     */
+    public int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    /**
+     * Returns the packed move that leads to the node.
+     *
+     * @param   node    index of the node
+     * @return          packed move, or NONE for the root
+     */
+    public int getMove(int node) {
+        return moves[node];
+    }
+
+    /**
+     * Returns the number of moves that the expansion of the node has tried.
+     *
+     * @param   node    index of the node
+     * @return          number of tried moves
+     */
+    public int getTriedMoves(int node) {
+        return triedMoves[node];
+    }
+
+    /**
+     * Sets the number of moves that the expansion of the node has tried.
+     *
+     * @param   node        index of the node
+     * @param   triedMoves  number of tried moves
+     */
+    public void setTriedMoves(int node, int triedMoves) {
+        this.triedMoves[node] = (short) triedMoves;
+    }
+
+    /**
+     * Returns the hash of the position of the node.
+     *
+     * @param   node    index of the node
+     * @return          hash of the position
+     */
+    public long getKey(int node) {
+        return keys[node];
+    }
+
+}
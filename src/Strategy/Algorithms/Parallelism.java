@@ -0,0 +1,17 @@
+package Strategy.Algorithms;
+
+/**
+ * Ways in which <code>MonteCarloTreeSearch</code> can use more than one thread.
+ */
+public enum Parallelism {
+
+    /**
+     * Every thread builds its own tree, the visits of the root children are merged at the end
+     */
+    ROOT,
+    /**
+     * All threads search in one shared tree, a virtual loss keeps them from following the same path
+     */
+    TREE
+
+}
@@ -0,0 +1,32 @@
+package Strategy.Algorithms;
+
+import Game.Board;
+import Game.Mark;
+import Game.Move;
+
+import java.util.Random;
+
+/**
+ * A rollout policy that plays a uniformly random empty field and a random rotation.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     RolloutPolicy
+ */
+public class RandomRolloutPolicy implements RolloutPolicy {
+
+    /**
+     * Returns a random empty field with a random rotation.
+     *
+     * @param   board   board of the random game, the game is not over
+     * @param   mark    mark to move
+     * @param   random  random generator of the current thread
+     * @return          packed random move
+     */
+    @Override
+    public int selectMove(Board board, Mark mark, Random random) {
+        int emptyCells = Long.bitCount(board.getBitboard(Mark.EMPTY));
+        return Move.pack(board.getEmptyField(random.nextInt(emptyCells)), random.nextInt(Move.ROTATIONS));
+    }
+
+}
@@ -0,0 +1,32 @@
+package Strategy.Algorithms;
+
+import Game.Board;
+import Game.Mark;
+
+import java.util.Random;
+
+/**
+ * A policy that chooses the moves of the random games in the simulation phase of MCTS. The policy is shared by all
+ * threads of the search, so it must not keep any state between calls.
+ * <p>
+ * The <code>RolloutPolicy</code> interface provides one method to choose the next move of a random game.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     RandomRolloutPolicy
+ * @see     HeuristicRolloutPolicy
+ * @see     MonteCarloTreeSearch
+ */
+public interface RolloutPolicy {
+
+    /**
+     * Returns the next move of the random game as a packed move. The board is not changed.
+     *
+     * @param   board   board of the random game, the game is not over
+     * @param   mark    mark to move
+     * @param   random  random generator of the current thread
+     * @return          packed move with an empty field
+     */
+    public int selectMove(Board board, Mark mark, Random random);
+
+}
@@ -0,0 +1,184 @@
+package Strategy.Algorithms;
+
+import Game.Move;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of one search for one move. They are created by <code>MonteCarloTreeSearch</code> and
+ * <code>Minimax</code> at the end of every search and can be used to tune the time budgets of the bot. A move that
+ * the bot finds without a search gets statistics with 0 iterations.
+ * <p>
+ * The meaning of some values depends on the algorithm:
+ * <ul>
+ *     <li>iterations : MCTS iterations, or completed depths of Minimax</li>
+ *     <li>rollouts : random games of MCTS, 0 for Minimax</li>
+ *     <li>nodes : nodes in the tree of MCTS, or positions searched by Minimax</li>
+ *     <li>max depth : deepest node of the MCTS tree, or the deepest completed depth of Minimax</li>
+ * </ul>
+ * A search whose tree could not grow anymore, because its node pool was full, is marked as such.
+ * <p>
+ * The <code>SearchStats</code> contains getters for all statistics and two methods that compute the speed of the
+ * search. The <code>toString</code> method returns all of them on one line, so they can be logged.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     MonteCarloTreeSearch
+ * @see     Minimax
+ */
+public class SearchStats {
+
+    private final String algorithm;
+    private final int iterations;
+    private final long rollouts;
+    private final long nodes;
+    private final int maxDepth;
+    private final List<Move> principalVariation;
+    private final Map<Move, Integer> rootVisits;
+    private final long elapsedNanos;
+    private final boolean treeFull;
+
+    public SearchStats(String algorithm, int iterations, long rollouts, long nodes, int maxDepth,
+                       List<Move> principalVariation, Map<Move, Integer> rootVisits, long elapsedNanos) {
+        this(algorithm, iterations, rollouts, nodes, maxDepth, principalVariation, rootVisits, elapsedNanos, false);
+    }
+
+    public SearchStats(String algorithm, int iterations, long rollouts, long nodes, int maxDepth,
+                       List<Move> principalVariation, Map<Move, Integer> rootVisits, long elapsedNanos,
+                       boolean treeFull) {
+        this.algorithm = algorithm;
+        this.iterations = iterations;
+        this.rollouts = rollouts;
+        this.nodes = nodes;
+        this.maxDepth = maxDepth;
+        this.principalVariation = Collections.unmodifiableList(principalVariation);
+        this.rootVisits = Collections.unmodifiableMap(rootVisits);
+        this.elapsedNanos = elapsedNanos;
+        this.treeFull = treeFull;
+    }
+
+    /**
+     * Returns the name of the algorithm that made the search.
+     *
+     * @return      name of the algorithm
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the number of iterations of the search.
+     *
+     * @return      number of iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the number of random games that were played.
+     *
+     * @return      number of rollouts
+     */
+    public long getRollouts() {
+        return rollouts;
+    }
+
+    /**
+     * Returns the number of nodes of the search.
+     *
+     * @return      number of nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the maximum depth that the search reached.
+     *
+     * @return      maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the moves that both players are expected to play, starting with the chosen move.
+     *
+     * @return      principal variation
+     */
+    public List<Move> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    /**
+     * Returns the number of visits of every move of the root. Empty for Minimax.
+     *
+     * @return      visits of the root moves
+     */
+    public Map<Move, Integer> getRootVisits() {
+        return rootVisits;
+    }
+
+    /**
+     * Returns the time that the search took in nanoseconds.
+     *
+     * @return      elapsed time
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns true if the tree of the search stopped growing because its node pool was full.
+     *
+     * @return      true if the tree was full
+     */
+    public boolean isTreeFull() {
+        return treeFull;
+    }
+
+    /**
+     * Returns the number of random games per second.
+     *
+     * @return      rollouts per second
+     */
+    public double getRolloutsPerSecond() {
+        return perSecond(rollouts);
+    }
+
+    /**
+     * Returns the number of nodes per second.
+     *
+     * @return      nodes per second
+     */
+    public double getNodesPerSecond() {
+        return perSecond(nodes);
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns all statistics on one line. Only the ten most visited root moves are shown.
+     *
+     * @return      statistics as a String
+     */
+    @Override
+    public String toString() {
+        StringBuilder visits = new StringBuilder();
+        rootVisits.entrySet().stream()
+                .sorted(Map.Entry.<Move, Integer>comparingByValue().reversed())
+                .limit(10)
+                .forEach(e -> visits.append(visits.length() == 0 ? "" : " ").append(e.getKey()).append('=')
+                        .append(e.getValue()));
+        return String.format("%s: iterations=%d rollouts=%d (%.0f/s) nodes=%d (%.0f/s) maxDepth=%d time=%dms pv=%s"
+                        + " visits=[%s]", algorithm, iterations, rollouts, getRolloutsPerSecond(), nodes,
+                getNodesPerSecond(), maxDepth, elapsedNanos / 1_000_000, principalVariation, visits)
+                + (treeFull ? " treeFull" : "");
+    }
+
+}
@@ -2,10 +2,16 @@ package Strategy.Algorithms;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents the state of the particular node. The state includes the position of the board, the playing mark,
@@ -17,10 +23,15 @@ import java.util.List;
  * <p>
  * The <code>State</code> contains one method get all possible moves that can be made.
  * <p>
+ * The <code>State</code> contains two methods to get the moves that lead to unique positions and to play one of them.
+ * <p>
  * The <code>State</code> contains three utility methods which increments value of visits, toggle playing mark and
  * add score to the node.
  * <p>
  * The <code>State</code> contains one method which plays a random game.
+ * <p>
+ * The statistics of a state are updated atomically, so many threads can search in the same tree. A virtual loss
+ * counts the threads that are currently on the way through the state.
  *
  * @author  Denis Krylov
  * @since   2.0
@@ -31,10 +42,26 @@ import java.util.List;
  */
 public class State {
 
+    private static final VarHandle VISIT_COUNT;
+    private static final VarHandle WIN_SCORE;
+    private static final VarHandle VIRTUAL_LOSS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VISIT_COUNT = lookup.findVarHandle(State.class, "visitCount", int.class);
+            WIN_SCORE = lookup.findVarHandle(State.class, "winScore", double.class);
+            VIRTUAL_LOSS = lookup.findVarHandle(State.class, "virtualLoss", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private Board board;
     private Mark mark;
-    private int visitCount;
-    private double winScore;
+    private volatile int visitCount;
+    private volatile double winScore;
+    private volatile int virtualLoss;
 
     public State() {
         board = new Board();
@@ -134,49 +161,113 @@ public class State {
     }
 
     /**
-     * Returns all possible states of the game. Puts a mark on an empty cell and rotate the board. Add each state
-     * to the array and return it.
+     * Returns the virtual loss of the particular state: the number of visits of threads that are still searching
+     * below it and have not back propagated yet.
+     *
+     * @return      virtual loss of the state
+     */
+    public int getVirtualLoss() {
+        return virtualLoss;
+    }
+
+    /**
+     * Adds the virtual loss to the particular state, a negative value removes it.
+     *
+     * @param   loss    virtual loss to add
+     */
+    public void addVirtualLoss(int loss) {
+        VIRTUAL_LOSS.getAndAdd(this, loss);
+    }
+
+    /**
+     * Returns all possible states of the game. Makes every move on a copy of the board of the state, adds each new
+     * position to the array and takes the move back. Only unique positions are copied into new states, duplicates
+     * and positions that are rotations or mirrors of an earlier one are found by the canonical hash of the board.
+     * The board of the state itself is never changed, so other threads can read it at the same time.
      *
      * @return      array of all possible states.
      */
     public List<State> getAllPossibleStates() {
-        List<Board> uniqueBoards = new ArrayList<>();
-        List<Integer> emptyCells = board.getEmptyCells();
+        Board board = this.board.deepCopy();
+        long emptyCells = board.getBitboard(Mark.EMPTY);
         List<State> superPositions = new ArrayList<>();
-        boolean isUnique = true;
-
-        for (Integer emptyCell : emptyCells) {
-            for (int r = 0; r < 8; r++) {
-                Board boardCopy = board.deepCopy();
-                boardCopy.setField(emptyCell, mark.other());
-                boardCopy.rotate(r);
-                for (Board ub : uniqueBoards) {
-                    if (Arrays.equals(boardCopy.getFields(), ub.getFields())) {
-                        isUnique = false;
-                        break;
-                    }
-                }
-                if (isUnique) {
-                    uniqueBoards.add(boardCopy);
+        Set<Long> uniqueHashes = new HashSet<>();
+
+        while (emptyCells != 0) {
+            int emptyCell = Long.numberOfTrailingZeros(emptyCells);
+            emptyCells &= emptyCells - 1;
+            for (int r = 0; r < Move.ROTATIONS; r++) {
+                board.makeMove(Move.of(emptyCell, r), mark.other());
+                if (uniqueHashes.add(board.canonicalHash())) {
+                    superPositions.add(new State(board, mark.other()));
                 }
-                isUnique = true;
+                board.unmakeMove();
             }
         }
 
-        for (Board ub : uniqueBoards) {
-            State newState = new State(ub, mark);
-            newState.setMark(mark.other());
-            superPositions.add(newState);
+        return superPositions;
+    }
+
+    /**
+     * Returns the packed moves of the opponent that lead to unique positions. The moves are made on a copy of the
+     * board and taken back, only the canonical hash of every position is kept to find duplicates, so symmetric
+     * moves share one child. No state is created, so the moves can be played one at a time with <code>play</code>.
+     *
+     * @return      array of packed moves
+     */
+    public int[] getUntriedMoves() {
+        Board board = this.board.deepCopy();
+        long emptyCells = board.getBitboard(Mark.EMPTY);
+        int[] moves = new int[Move.COUNT];
+        int count = 0;
+        Set<Long> uniqueHashes = new HashSet<>();
+
+        while (emptyCells != 0) {
+            int emptyCell = Long.numberOfTrailingZeros(emptyCells);
+            emptyCells &= emptyCells - 1;
+            for (int r = 0; r < Move.ROTATIONS; r++) {
+                Move move = Move.of(emptyCell, r);
+                board.makeMove(move, mark.other());
+                if (uniqueHashes.add(board.canonicalHash())) {
+                    moves[count++] = move.pack();
+                }
+                board.unmakeMove();
+            }
         }
 
-        return superPositions;
+        return Arrays.copyOf(moves, count);
+    }
+
+    /**
+     * Returns the state after the opponent plays the move. The rotation is skipped if the placement ends the game,
+     * the same as <code>Board.makeMove</code> does. The current state is not changed.
+     *
+     * @param   move    packed move
+     * @return          new state with the opponent's mark
+     */
+    public State play(int move) {
+        State state = new State(board, mark.other());
+        state.board.setField(Move.index(move), state.mark);
+        if (!state.board.gameOver()) {
+            state.board.rotate(Move.rotation(move));
+        }
+        return state;
     }
 
     /**
      * Increment the number of visits to a particular state.
      */
     public void incrementVisit() {
-        this.visitCount++;
+        VISIT_COUNT.getAndAdd(this, 1);
+    }
+
+    /**
+     * Adds the number of visits to a particular state.
+     *
+     * @param   visits  visits to add
+     */
+    public void addVisits(int visits) {
+        VISIT_COUNT.getAndAdd(this, visits);
     }
 
     /**
@@ -185,9 +276,13 @@ public class State {
      * @param   score   score to add
      */
     public void addScore(double score) {
-        if (this.winScore != Integer.MIN_VALUE) {
-            this.winScore += score;
-        }
+        double current;
+        do {
+            current = this.winScore;
+            if (current == Integer.MIN_VALUE) {
+                return;
+            }
+        } while (!WIN_SCORE.compareAndSet(this, current, current + score));
     }
 
     /**
@@ -198,15 +293,16 @@ public class State {
     }
 
     /**
-     * Makes a random move from the current state. It's useful to simulate a random game in the MCTS.
+     * Makes a random move from the current state. It's useful to simulate a random game in the MCTS. The field is
+     * chosen from the bitboard of empty fields with the random generator of the current thread. The move is made
+     * with <code>makeMove</code>, so a placement that ends the game is not rotated, like in every other move.
      */
     public void randomPlay() {
-        List<Integer> emptyCells = this.board.getEmptyCells();
-        int totalPossibilities = emptyCells.size();
-        int selectRandomField = (int) (Math.random() * totalPossibilities);
-        int selectRandomRotation = (int) (Math.random() * 8);
-        this.board.setField(emptyCells.get(selectRandomField), this.mark);
-        this.board.rotate(selectRandomRotation);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int totalPossibilities = Long.bitCount(this.board.getBitboard(Mark.EMPTY));
+        int selectRandomField = random.nextInt(totalPossibilities);
+        int selectRandomRotation = random.nextInt(Move.ROTATIONS);
+        this.board.makeMove(Move.of(this.board.getEmptyField(selectRandomField), selectRandomRotation), this.mark);
     }
 
 }
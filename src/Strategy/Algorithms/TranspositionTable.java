@@ -0,0 +1,162 @@
+package Strategy.Algorithms;
+
+import Game.Move;
+
+/**
+ * A fixed-size transposition table that remembers the results of positions which were already searched by
+ * <code>Minimax</code>. In Pentago the same position is reached by many move orders, because rotations of different
+ * sub-boards commute, so the table saves a lot of repeated work.
+ * <p>
+ * Every entry is packed into one long: the score, the search depth, the bound type and the best move. The table
+ * stores <code>key ^ data</code> next to the data, so an entry that was half written by another thread simply does
+ * not match its key. No locks are needed.
+ * <p>
+ * Entries are replaced by depth: a new result only overwrites an entry of another position if it was searched at
+ * least as deep.
+ *
+ * @author  Denis Krylov
+ * @since   3.0
+ * @see     Minimax
+ */
+public class TranspositionTable {
+
+    /**
+     * The score is the exact value of the position.
+     */
+    public static final int EXACT = 0;
+    /**
+     * The score is a lower bound, the search failed high.
+     */
+    public static final int LOWER = 1;
+    /**
+     * The score is an upper bound, the search failed low.
+     */
+    public static final int UPPER = 2;
+
+    private static final int SCORE_BITS = 16;
+    private static final int DEPTH_SHIFT = SCORE_BITS;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + 8;
+    private static final int MOVE_SHIFT = BOUND_SHIFT + 2;
+    private static final long VALID = 1L << 63;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * Creates a table with at least the selected number of entries, rounded up to a power of two.
+     *
+     * @param   entries     number of entries
+     */
+    public TranspositionTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(2, entries - 1)) << 1;
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the number of entries of the table.
+     *
+     * @return      number of entries
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Looks up the entry of the position.
+     *
+     * @param   key     hash of the position
+     * @return          the packed entry, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int i = (int) key & mask;
+        long entry = data[i];
+        if ((keys[i] ^ entry) != key || (entry & VALID) == 0) {
+            return 0L;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the result of a search. An entry of another position is only replaced if the new result was searched
+     * at least as deep.
+     *
+     * @param   key     hash of the position
+     * @param   depth   depth of the search
+     * @param   score   score of the position
+     * @param   bound   EXACT, LOWER or UPPER
+     * @param   move    packed best move, or -1 if there is none
+     */
+    /*@
+    requires 0 <= depth && depth < 256;
+    requires bound == EXACT || bound == LOWER || bound == UPPER;
+    requires -1 <= move && move < Move.COUNT;
+    */
+    public void store(long key, int depth, int score, int bound, int move) {
+        int i = (int) key & mask;
+        long old = data[i];
+        if ((old & VALID) != 0 && (keys[i] ^ old) != key && depth(old) > depth) {
+            return;
+        }
+        long entry = VALID
+                | (score & ((1L << SCORE_BITS) - 1))
+                | (long) depth << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) (move + 1) << MOVE_SHIFT;
+        data[i] = entry;
+        keys[i] = key ^ entry;
+    }
+
+    /**
+     * Removes all entries from the table.
+     */
+    public void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 0L;
+            data[i] = 0L;
+        }
+    }
+
+    /**
+     * Returns the score of an entry.
+     *
+     * @param   entry   packed entry
+     * @return          score
+     */
+    public static int score(long entry) {
+        return (short) entry;
+    }
+
+    /**
+     * Returns the search depth of an entry.
+     *
+     * @param   entry   packed entry
+     * @return          depth
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Returns the bound type of an entry.
+     *
+     * @param   entry   packed entry
+     * @return          EXACT, LOWER or UPPER
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 3;
+    }
+
+    /**
+     * Returns the packed best move of an entry.
+     *
+     * @param   entry   packed entry
+     * @return          packed move, or -1 if there is none
+     */
+    public static int move(long entry) {
+        return (int) (entry >>> MOVE_SHIFT & 0x1FF) - 1;
+    }
+
+}
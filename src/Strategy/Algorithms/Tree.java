@@ -49,7 +49,7 @@ public class Tree {
      * @param   child   child node
      */
     public void addChild(Node parent, Node child) {
-        parent.getChildArray().add(child);
+        parent.addChild(child);
     }
 
 }
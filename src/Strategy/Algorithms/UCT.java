@@ -1,7 +1,6 @@
 package Strategy.Algorithms;
 
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.NoSuchElementException;
 
 /**
  * Upper Confidence Bound applied to trees.
@@ -35,15 +34,40 @@ public class UCT {
     }
 
     /**
-     * Finds the node with the highest UCT in the child array of particular parent.
+     * Finds the node with the highest UCT in the child array of particular parent. The virtual loss of a node is
+     * counted as visits without a win, so threads that search in the same tree spread over different paths.
      *
      * @param   node    parent node
      * @return          child node with the highest UCT
      */
     static Node findBestNodeWithUCT(Node node) {
-        int parentVisit = node.getState().getVisitCount();
-        return Collections.max(
-                node.getChildArray(),
-                Comparator.comparing(c -> uctValue(parentVisit, c.getState().getWinScore(), c.getState().getVisitCount())));
+        int parentVisit = node.getState().getVisitCount() + node.getState().getVirtualLoss();
+        int count = node.getChildCount();
+        if (count == 0) {
+            throw new NoSuchElementException();
+        }
+        Node best = node.getChild(0);
+        double bestValue = value(parentVisit, best);
+        for (int i = 1; i < count; i++) {
+            Node child = node.getChild(i);
+            double value = value(parentVisit, child);
+            if (value > bestValue) {
+                best = child;
+                bestValue = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Computes the UCT value of the child node, counting its virtual loss as visits.
+     *
+     * @param   parentVisit     visits of the parent node including its virtual loss
+     * @param   child           child node
+     * @return                  UCT value of the child
+     */
+    private static double value(int parentVisit, Node child) {
+        State state = child.getState();
+        return uctValue(parentVisit, state.getWinScore(), state.getVisitCount() + state.getVirtualLoss());
     }
 }
@@ -2,10 +2,17 @@ package Strategy;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
+import Strategy.Algorithms.MonteCarloTreeSearch;
+import Strategy.Algorithms.Parallelism;
+import Strategy.Algorithms.RolloutPolicy;
+import Strategy.Algorithms.SearchStats;
 
 /**
  * Represents the AlphaPentaGo AI bot that plays the game. AlphaPentaGo is Artificial Intelligence that
  * plays the game using Monte Carlo Tree Search combined with Minimax to find the best possible move to play.
+ * It thinks either for a number of iterations that depends on the difficulty level or for a fixed time per move.
+ * With a Minimax time budget it searches with iterative deepening Minimax only, as deep as the budget allows.
  *
  * <b>Note:</b> <code>AlphaPentaGo</code> class implements <code>Strategy</code> interface.
  *
@@ -18,10 +25,113 @@ import Game.Mark;
  */
 public class AlphaPentaGo implements Strategy {
 
-    private int level;
+    private final MonteCarloTreeSearch mcts;
+    private SearchStats stats;
+    private long minimaxTime;
 
     public AlphaPentaGo(int level) {
-        this.level = level;
+        this.mcts = new MonteCarloTreeSearch(level);
+    }
+
+    /**
+     * Sets the thinking time per move. If it is bigger than 0, it is used instead of the difficulty level.
+     *
+     * @param   thinkTime   thinking time in milliseconds, 0 to use the difficulty level
+     */
+    public void setThinkTime(long thinkTime) {
+        mcts.setThinkTime(thinkTime);
+    }
+
+    /**
+     * Sets the time budget per move of the search with Minimax only. If it is bigger than 0, Minimax deepens
+     * the search until the budget is spent instead of searching with MCTS, and the bot does not ponder.
+     *
+     * @param   minimaxTime     time budget in milliseconds, 0 to search with MCTS
+     */
+    public void setMinimaxTime(long minimaxTime) {
+        this.minimaxTime = minimaxTime;
+    }
+
+    /**
+     * Sets the hard cap of iterations per move when the thinking time is used.
+     *
+     * @param   maxIterations   maximum number of iterations
+     */
+    public void setMaxIterations(int maxIterations) {
+        mcts.setMaxIterations(maxIterations);
+    }
+
+    /**
+     * Sets the number of threads that search in parallel.
+     *
+     * @param   threads     number of threads
+     */
+    public void setThreads(int threads) {
+        mcts.setThreads(threads);
+    }
+
+    /**
+     * Sets the way in which the threads search: each in its own tree or all in one shared tree.
+     *
+     * @param   parallelism     root or tree parallelism
+     */
+    public void setParallelism(Parallelism parallelism) {
+        mcts.setParallelism(parallelism);
+    }
+
+    /**
+     * Sets the number of random games that are played in parallel from every leaf of the search tree.
+     *
+     * @param   rollouts    number of rollouts per leaf
+     */
+    public void setRollouts(int rollouts) {
+        mcts.setRollouts(rollouts);
+    }
+
+    /**
+     * Sets the policy that chooses the moves of the random games of the search.
+     *
+     * @param   rolloutPolicy   rollout policy
+     */
+    public void setRolloutPolicy(RolloutPolicy rolloutPolicy) {
+        mcts.setRolloutPolicy(rolloutPolicy);
+    }
+
+    /**
+     * Selects whether the search tree is stored in a pool of primitive arrays that is reused for every move.
+     *
+     * @param   pooled  true to use the pooled search
+     */
+    public void setPooled(boolean pooled) {
+        mcts.setPooled(pooled);
+    }
+
+    /**
+     * Selects whether the search continues in the tree of the previous move.
+     *
+     * @param   reuseTree   true to reuse the tree
+     */
+    public void setReuseTree(boolean reuseTree) {
+        mcts.setReuseTree(reuseTree);
+    }
+
+    /**
+     * Returns the number of iterations that ran to determine the last move.
+     *
+     * @return      number of iterations
+     */
+    public int getIterations() {
+        return stats == null ? 0 : stats.getIterations();
+    }
+
+    /**
+     * Returns the statistics of the search for the last move. A move that was found before the search, like a
+     * move that wins at once, gets statistics with 0 iterations.
+     *
+     * @return      statistics of the last move, or null if there was none
+     */
+    public SearchStats getStats() {
+        return stats;
     }
 
     /**
@@ -36,20 +146,38 @@ public class AlphaPentaGo implements Strategy {
 
     /**
      * Determines a well-chosen valid move on the board using <code>DecisionEngine</code>.
-     * Returns a list which has the following structure:
-     * <ul>
-     *     <li>index 0 : MOVE command</li>
-     *     <li>index 1 : index to put a mark</li>
-     *     <li>index 2 : index to rotate the board</li>
-     * </ul>
      *
      * @param   board   the current board of the game
      * @param   mark    the mark of the current player
-     * @return          list of type String
+     * @return          the next move
      */
     @Override
-    public String[] determineMove(Board board, Mark mark) {
+    public Move determineMove(Board board, Mark mark) {
         DecisionEngine de = new DecisionEngine(board, mark);
-        return de.compute(level);
+        Move move = minimaxTime > 0 ? de.computeMinimax(minimaxTime) : de.compute(mcts);
+        stats = de.getStats();
+        return move;
+    }
+
+    /**
+     * Continues the search of the last move on a background thread while the opponent thinks.
+     *
+     * @param   board   the board after our move
+     * @param   mark    the mark of the current player
+     */
+    @Override
+    public void startPondering(Board board, Mark mark) {
+        if (minimaxTime > 0) {
+            return;
+        }
+        mcts.startPondering(board, mark);
+    }
+
+    /**
+     * Stops the search on the background thread.
+     */
+    @Override
+    public void stopPondering() {
+        mcts.stopPondering();
     }
 }
@@ -2,23 +2,34 @@ package Strategy;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 import Strategy.Algorithms.Minimax;
 import Strategy.Algorithms.MonteCarloTreeSearch;
+import Strategy.Algorithms.SearchStats;
+import Strategy.Algorithms.TranspositionTable;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents the brain of the bot that helps to find best moves on the current board.
  * <p>
  * The <code>DecisionEngine</code> contains one method to determine the best decision based on
- * the Monte Carlo Tree Search (with UCT) combined with Minimax.
+ * the Monte Carlo Tree Search (with UCT) combined with Minimax, and one method that uses only Minimax with
+ * a time budget.
  * <p>
  * The <code>DecisionEngine</code> contains two methods to dynamically decide what Minimax depth to choose
  * and how many iterations to make to compute the most probable move with MCTS.
  * <p>
  * The <code>DecisionEngine</code> contains one method to extract the move from two different board states. 
+ * <p>
+ * The statistics of every search are printed before the move and can be requested afterwards. A move that is
+ * found without a search gets statistics with 0 iterations.
+ * <p>
+ * The <code>DecisionEngine</code> contains two methods that look one move ahead before the search: a move that
+ * wins at once is played without searching, and if the opponent threatens to win, only the moves that stop
+ * the threat are searched.
  *
  * @author  Denis Krylov
  * @since   2.0
@@ -27,8 +38,14 @@ import java.util.List;
  */
 public class DecisionEngine {
 
+    /**
+     * Number of entries of the transposition table that is used by the time limited Minimax search.
+     */
+    private static final int TABLE_SIZE = 1 << 18;
+
     private Board board;
     private Mark mark;
+    private SearchStats stats;
 
     public DecisionEngine(Board board, Mark mark) {
         this.board = board;
@@ -37,61 +54,161 @@ public class DecisionEngine {
 
     /**
      * Computes the best possible move on the current board with selected mark and chosen difficulty.
-     * The more difficulty is the more iterations do the MCTS. After the method converts the move
-     * to the string of type MOVE~move_index~rotation_index.
+     * The more difficulty is the more iterations do the MCTS.
      *
      * @param   difficulty  how many iterations should MCTS do
-     * @return              best move as a String
+     * @return              best move
+     */
+    public Move compute(int difficulty) {
+        return compute(new MonteCarloTreeSearch(difficulty));
+    }
+
+    /**
+     * Computes the best possible move on the current board with selected mark and the selected MCTS. The MCTS
+     * decides how long it searches: by its difficulty level or by its thinking time. A winning move is returned
+     * without searching. If only some moves do not let the opponent win at once, MCTS searches only these
+     * moves, and if there is just one of them, it is returned without searching.
+     *
+     * @param   mcts    the MCTS to search with
+     * @return          best move
      */
-    public String[] compute(int difficulty) {
-        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(difficulty);
-        Board resultBoard = mcts.findNextMove(board, mark);
-        List<Integer> decision = extractMove(board, resultBoard);
-        String[] result = new String[3];
-        result[0] = "MOVE";
-        if (!decision.isEmpty()) {
-            result[1] = decision.get(0) + "";
-            result[2] = decision.get(1) + "";
-        } else {
+    public Move compute(MonteCarloTreeSearch mcts) {
+        long start = System.nanoTime();
+        Move result = findWinningMove();
+        if (result != null) {
+            return tacticalMove(result, start);
+        }
+        List<Move> safeMoves = findSafeMoves();
+        if (safeMoves.size() == 1) {
+            return tacticalMove(safeMoves.get(0), start);
+        }
+        boolean threatened = !safeMoves.isEmpty() && safeMoves.size() < board.getEmptyCells().size() * Move.ROTATIONS;
+        Board resultBoard = mcts.findNextMove(board, mark, threatened ? safeMoves : null);
+        stats = mcts.getStats();
+        System.out.println(stats);
+        result = extractMove(board, resultBoard);
+        if (result == null) {
             List<Integer> emptyCells = board.getEmptyCells();
-            result[1] = emptyCells.get(0) + "";
-            result[2] = 0 + "";
+            result = Move.of(emptyCells.get(0), 0);
         }
-        System.out.println(result[0] + "~" + result[1] + "~" + result[2]);
+        System.out.println(result);
         return result;
     }
 
+    /**
+     * Returns a move that was found without a search and records statistics with 0 iterations for it.
+     *
+     * @param   move    the move
+     * @param   start   value of <code>System.nanoTime</code> when the computation started
+     * @return          the move
+     */
+    private Move tacticalMove(Move move, long start) {
+        stats = new SearchStats("Tactics", 0, 0, 0, 0, List.of(move), Map.of(), System.nanoTime() - start);
+        System.out.println(stats);
+        System.out.println(move);
+        return move;
+    }
+
+    /**
+     * Returns the statistics of the last computed move.
+     *
+     * @return      statistics of the last move, or null if no move was computed yet
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Computes the best move with Minimax that deepens the search step by step until the time budget is spent.
+     * The move of the deepest completed search is returned, so the answer always fits in the time limit.
+     *
+     * @param   timeBudget  time budget in milliseconds
+     * @return              best move
+     */
+    public Move computeMinimax(long timeBudget) {
+        int emptyCellsSize = board.getEmptyCells().size();
+        Minimax minimax = new Minimax(emptyCellsSize, new TranspositionTable(TABLE_SIZE));
+        Move result = minimax.findBestMove(board, mark, timeBudget);
+        stats = minimax.getStats();
+        System.out.println(stats);
+        if (result == null) {
+            result = Move.of(board.getEmptyCells().get(0), 0);
+        }
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Returns a move after which the mark has five in a row and the opponent does not.
+     *
+     * @return      winning move or null if there is none
+     */
+    public Move findWinningMove() {
+        if (!board.hasWinningMove(mark)) {
+            return null;
+        }
+        Board boardCopy = board.deepCopy();
+        for (Integer emptyCell : boardCopy.getEmptyCells()) {
+            for (int r = 0; r < Move.ROTATIONS; r++) {
+                Move move = Move.of(emptyCell, r);
+                boardCopy.makeMove(move, mark);
+                boolean won = boardCopy.isWinner(mark) && !boardCopy.isWinner(mark.other());
+                boardCopy.unmakeMove();
+                if (won) {
+                    return move;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns all moves after which the opponent has no five in a row and cannot win with the next move.
+     * The replies of the opponent are checked on the bitboards by <code>hasWinningMove</code>, so no search is
+     * needed for them.
+     *
+     * @return      list of safe moves, empty if every move loses
+     */
+    public List<Move> findSafeMoves() {
+        Board boardCopy = board.deepCopy();
+        List<Move> safeMoves = new ArrayList<>();
+        for (Integer emptyCell : boardCopy.getEmptyCells()) {
+            for (int r = 0; r < Move.ROTATIONS; r++) {
+                Move move = Move.of(emptyCell, r);
+                boardCopy.makeMove(move, mark);
+                boolean lost = boardCopy.isWinner(mark.other()) && !boardCopy.isWinner(mark);
+                if (!lost && !boardCopy.hasWinningMove(mark.other())) {
+                    safeMoves.add(move);
+                }
+                boardCopy.unmakeMove();
+            }
+        }
+        return safeMoves;
+    }
+
     /**
      * Extracts move from different boards. For example, if there was an original board before the move
      * and a new after some move this function understand what move was made by analysing two different boards.
-     * If it's not possible to determine the move returns an empty array.
+     * If it's not possible to determine the move returns null.
      *
      * @param   originalBoard   board before the move
      * @param   currentBoard    board after the move
-     * @return                  extracted move as an array
+     * @return                  extracted move or null
      */
-    public List<Integer> extractMove(Board originalBoard, Board currentBoard) {
+    public Move extractMove(Board originalBoard, Board currentBoard) {
         Board originalBoardCopy = originalBoard.deepCopy();
         List<Integer> emptyCells = originalBoardCopy.getEmptyCells();
-        List<Integer> result = new ArrayList<>();
-        int move = 0;
-        int rotation = 0;
         for (Integer emptyCell : emptyCells) {
-            for (int r = 0; r < 8; r++) {
-                originalBoardCopy.setField(emptyCell, mark);
-                originalBoardCopy.rotate(r);
-                if (Arrays.equals(originalBoardCopy.getFields(), currentBoard.getFields())) {
-                    move = emptyCell;
-                    rotation = r;
-                    result.add(move);
-                    result.add(rotation);
-                    return result;
+            for (int r = 0; r < Move.ROTATIONS; r++) {
+                Move move = Move.of(emptyCell, r);
+                originalBoardCopy.makeMove(move, mark);
+                if (originalBoardCopy.equals(currentBoard)) {
+                    return move;
                 }
-                originalBoardCopy.rotateBack(r);
-                originalBoardCopy.setField(emptyCell, Mark.EMPTY);
+                originalBoardCopy.unmakeMove();
             }
         }
-        return result;
+        return null;
     }
 
     /**
@@ -2,6 +2,7 @@ package Strategy;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -32,19 +33,13 @@ public class RandomBot implements Strategy{
 
     /**
      * Simulates a random valid move on the board.
-     * Returns a list which has the following structure:
-     * <ul>
-     *     <li>index 0 : MOVE command</li>
-     *     <li>index 1 : index to put a mark</li>
-     *     <li>index 2 : index to rotate the board</li>
-     * </ul>
      *
      * @param   board   the current board of the game
      * @param   mark    the mark of the current player
-     * @return          list of type String
+     * @return          the random move
      */
     @Override
-    public String[] determineMove(Board board, Mark mark) {
+    public Move determineMove(Board board, Mark mark) {
         List<Integer> list = new ArrayList<>();
         for (int i = 0; i < board.DIM * board.DIM; i++) {
             if (board.getField(i) == Mark.EMPTY) {
@@ -52,12 +47,7 @@ public class RandomBot implements Strategy{
             }
         }
         Random rand = new Random();
-        String[] result = new String[3];
-        result[0] = "MOVE";
-        result[1] = list.get(rand.nextInt(list.size())) + "";
-        result[2] = rand.nextInt(7) + "";
-        System.out.println(result[0] + "~" + result[1] + "~" + result[2]);
-        return result;
+        return Move.of(list.get(rand.nextInt(list.size())), rand.nextInt(Move.ROTATIONS));
     }
 
 }
@@ -2,6 +2,7 @@ package Strategy;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 
 /**
  * A strategy for the bot player in the game. The user of this interface has precise control over what strategy
@@ -11,6 +12,8 @@ import Game.Mark;
  * The <code>Strategy</code> interface provides one method to get the information about the strategy.
  * <p>
  * The <code>Strategy</code> interface provides one method to determine next move.
+ * <p>
+ * The <code>Strategy</code> interface provides two methods to think on the opponent's time.
  *
  * @author  Daan Schram
  * @author  Denis Krylov
@@ -18,6 +21,7 @@ import Game.Mark;
  * @see     Player.BotPlayer
  * @see     Board
  * @see     Mark
+ * @see     Move
  */
 public interface Strategy {
 
@@ -29,17 +33,28 @@ public interface Strategy {
     public String getName();
 
     /**
-     * Returns a next move as a list which has the following structure:
-     * <ul>
-     *     <li>index 0 : MOVE command</li>
-     *     <li>index 1 : index to put a mark</li>
-     *     <li>index 2 : index to rotate the board</li>
-     * </ul>
+     * Returns a next move: the index to put a mark on and the index to rotate the board.
      *
      * @param   board   the current board of the game
      * @param   mark    the mark of the current player
-     * @return          list of type String
+     * @return          the next move
+     */
+    public Move determineMove(Board board, Mark mark);
+
+    /**
+     * Starts to think on the opponent's time. The strategy may search in the background until
+     * <code>stopPondering</code> is called. By default it does nothing.
+     *
+     * @param   board   the board after our move
+     * @param   mark    the mark of the current player
+     */
+    public default void startPondering(Board board, Mark mark) {
+    }
+
+    /**
+     * Stops thinking on the opponent's time. By default it does nothing.
      */
-    public String[] determineMove(Board board, Mark mark);
+    public default void stopPondering() {
+    }
 
 }
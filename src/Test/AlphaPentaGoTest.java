@@ -2,11 +2,19 @@ package Test;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 import Player.BotPlayer;
 import Strategy.AlphaPentaGo;
+import Strategy.Algorithms.Minimax;
+import Strategy.Algorithms.MonteCarloTreeSearch;
+import Strategy.Algorithms.Node;
+import Strategy.Algorithms.Parallelism;
+import Strategy.Algorithms.SearchStats;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -52,8 +60,8 @@ public class AlphaPentaGoTest {
         board.setField(17, Mark.OO);
         board.setField(33, Mark.OO);
         board.setField(34, Mark.OO);
-        String[] move = botPlayer.determineMove(board);
-        assertEquals(0, Integer.parseInt(move[2]));
+        Move move = botPlayer.determineMove(board);
+        assertEquals(0, move.getRotation());
     }
 
     @Test
@@ -62,8 +70,8 @@ public class AlphaPentaGoTest {
         board.setField(7, Mark.OO);
         board.setField(14, Mark.OO);
         board.setField(21, Mark.OO);
-        String[] move = botPlayer.determineMove(board);
-        assertEquals(28, Integer.parseInt(move[1]));
+        Move move = botPlayer.determineMove(board);
+        assertEquals(28, move.getIndex());
     }
 
     @Test
@@ -72,8 +80,8 @@ public class AlphaPentaGoTest {
         board.setField(7, Mark.XX);
         board.setField(14, Mark.XX);
         board.setField(21, Mark.XX);
-        String[] move = botPlayer.determineMove(board);
-        assertEquals(28, Integer.parseInt(move[1]));
+        Move move = botPlayer.determineMove(board);
+        assertEquals(28, move.getIndex());
     }
 
     @Test
@@ -85,8 +93,8 @@ public class AlphaPentaGoTest {
         board.setField(0, Mark.XX);
         board.setField(6, Mark.XX);
         board.setField(12, Mark.XX);
-        String[] move = botPlayer.determineMove(board);
-        assertEquals(8, Integer.parseInt(move[1]));
+        Move move = botPlayer.determineMove(board);
+        assertEquals(8, move.getIndex());
     }
 
     @Test
@@ -100,9 +108,190 @@ public class AlphaPentaGoTest {
         board.setField(27, Mark.OO);
         board.setField(34, Mark.OO);
         board.setField(6, Mark.OO);
-        String[] move = botPlayer.determineMove(board);
-        assertTrue(Integer.parseInt(move[1]) == 0 || Integer.parseInt(move[1]) == 35);
+        Move move = botPlayer.determineMove(board);
+        assertTrue(move.getIndex() == 0 || move.getIndex() == 35);
     }
 
+    @Test
+    public void testThinkTime() {
+        AlphaPentaGo alphaPentaGo = new AlphaPentaGo(5);
+        alphaPentaGo.setThinkTime(200);
+        board.setField(14, Mark.XX);
+        board.setField(21, Mark.OO);
+        long start = System.currentTimeMillis();
+        Move move = alphaPentaGo.determineMove(board, Mark.XX);
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertTrue(board.isEmptyField(move.getIndex()));
+        assertTrue(alphaPentaGo.getIterations() > 0);
+
+        alphaPentaGo.setMaxIterations(10);
+        alphaPentaGo.determineMove(board, Mark.XX);
+        assertEquals(10, alphaPentaGo.getIterations());
+    }
+
+    @Test
+    public void testStatsOfTacticalMove() {
+        AlphaPentaGo alphaPentaGo = new AlphaPentaGo(1);
+        alphaPentaGo.setThinkTime(60000);
+        alphaPentaGo.setMaxIterations(500);
+        board.setField(14, Mark.XX);
+        board.setField(21, Mark.OO);
+        alphaPentaGo.determineMove(board, Mark.XX);
+        assertEquals(500, alphaPentaGo.getIterations());
+        assertEquals("MCTS", alphaPentaGo.getStats().getAlgorithm());
+
+        board.reset();
+        for (int i = 0; i < 4; i++) {
+            board.setField(i, Mark.XX);
+        }
+        Move move = alphaPentaGo.determineMove(board, Mark.XX);
+        assertEquals(0, alphaPentaGo.getIterations());
+        assertEquals("Tactics", alphaPentaGo.getStats().getAlgorithm());
+        assertEquals(0, alphaPentaGo.getStats().getRollouts());
+        assertEquals(move, alphaPentaGo.getStats().getPrincipalVariation().get(0));
+        assertTrue(alphaPentaGo.getStats().getRootVisits().isEmpty());
+    }
+
+    @Test
+    public void testMinimaxTime() {
+        AlphaPentaGo alphaPentaGo = new AlphaPentaGo(1);
+        alphaPentaGo.setMinimaxTime(300);
+        board.setField(14, Mark.XX);
+        board.setField(21, Mark.OO);
+        long start = System.currentTimeMillis();
+        Move move = alphaPentaGo.determineMove(board, Mark.XX);
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertTrue(board.isEmptyField(move.getIndex()));
+        assertEquals("Minimax", alphaPentaGo.getStats().getAlgorithm());
+        assertTrue(alphaPentaGo.getStats().getMaxDepth() >= 1);
+    }
+
+    /**
+     * Puts four X in the top row and three O below them, so O has to stop X from winning at once.
+     */
+    private void setUpThreat() {
+        for (int i = 0; i < 4; i++) {
+            board.setField(i, Mark.XX);
+        }
+        board.setField(7, Mark.OO);
+        board.setField(8, Mark.OO);
+        board.setField(9, Mark.OO);
+    }
+
+    /**
+     * Puts one X and one O on the board, so there is no win or threat and every move is searched.
+     */
+    private void setUpQuiet() {
+        board.setField(14, Mark.XX);
+        board.setField(21, Mark.OO);
+    }
+
+    /**
+     * Lets O move on the threat position and checks that X cannot win after it.
+     *
+     * @param   alphaPentaGo    strategy that moves for O
+     */
+    private void assertBlocks(AlphaPentaGo alphaPentaGo) {
+        setUpThreat();
+        Move move = alphaPentaGo.determineMove(board, Mark.OO);
+        board.makeMove(move, Mark.OO);
+        assertNotEquals(1, new Minimax(1).findNextMove(board, Mark.XX));
+        board.reset();
+    }
+
+    /**
+     * Checks that the separate trees of root parallelization share the iterations and are merged at the root.
+     */
+    @Test
+    public void testRootParallel() {
+        AlphaPentaGo alphaPentaGo = new AlphaPentaGo(1);
+        alphaPentaGo.setThreads(2);
+        assertBlocks(alphaPentaGo);
+
+        setUpQuiet();
+        Move move = alphaPentaGo.determineMove(board, Mark.XX);
+        SearchStats stats = alphaPentaGo.getStats();
+        assertEquals("MCTS", stats.getAlgorithm());
+        assertEquals(10000, alphaPentaGo.getIterations());
+        assertEquals(10000, stats.getRollouts());
+        // every iteration of both trees visits one root child, and both trees add up in the merged root visits
+        assertEquals(10000, stats.getRootVisits().values().stream().mapToInt(Integer::intValue).sum());
+        assertTrue(stats.getNodes() > 10000);
+        assertEquals(move, stats.getPrincipalVariation().get(0));
+    }
+
+    /**
+     * Checks that tree parallelization finishes the iterations in one tree and takes back every virtual loss.
+     */
+    @Test
+    public void testTreeParallel() {
+        AlphaPentaGo alphaPentaGo = new AlphaPentaGo(1);
+        alphaPentaGo.setThreads(4);
+        alphaPentaGo.setParallelism(Parallelism.TREE);
+        alphaPentaGo.setThinkTime(300);
+        assertBlocks(alphaPentaGo);
+        assertTrue(alphaPentaGo.getIterations() > 0);
+
+        setUpQuiet();
+        alphaPentaGo.setThinkTime(0);
+        alphaPentaGo.determineMove(board, Mark.XX);
+        assertEquals("MCTS", alphaPentaGo.getStats().getAlgorithm());
+        assertEquals(10000, alphaPentaGo.getIterations());
+
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch(1);
+        mcts.setThreads(4);
+        mcts.setParallelism(Parallelism.TREE);
+        mcts.findNextMove(board, Mark.XX);
+        Node root = mcts.getTree().getRoot().getParent();
+        assertEquals(10000, root.getState().getVisitCount());
+        // no iteration is in flight anymore, so no node keeps a virtual loss
+        Deque<Node> stack = new ArrayDeque<>(List.of(root));
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            assertEquals(0, node.getState().getVirtualLoss());
+            stack.addAll(node.getChildArray());
+        }
+    }
+
+    /**
+     * Checks that leaf parallelization plays the selected number of rollouts in every iteration.
+     */
+    @Test
+    public void testLeafParallel() {
+        AlphaPentaGo alphaPentaGo = new AlphaPentaGo(1);
+        alphaPentaGo.setRollouts(4);
+        alphaPentaGo.setThinkTime(60000);
+        alphaPentaGo.setMaxIterations(2000);
+        assertBlocks(alphaPentaGo);
+        assertEquals(2000, alphaPentaGo.getIterations());
+
+        setUpQuiet();
+        alphaPentaGo.determineMove(board, Mark.XX);
+        assertEquals("MCTS", alphaPentaGo.getStats().getAlgorithm());
+        assertEquals(2000, alphaPentaGo.getIterations());
+        assertEquals(2000 * 4, alphaPentaGo.getStats().getRollouts());
+    }
+
+    /**
+     * Checks that the node pool grows beyond its first arrays and does not change the board.
+     */
+    @Test
+    public void testPooled() {
+        AlphaPentaGo alphaPentaGo = new AlphaPentaGo(1);
+        alphaPentaGo.setPooled(true);
+        assertBlocks(alphaPentaGo);
+
+        setUpQuiet();
+        Board before = board.deepCopy();
+        Move move = alphaPentaGo.determineMove(board, Mark.XX);
+        SearchStats stats = alphaPentaGo.getStats();
+        assertEquals(before, board);
+        assertEquals(10000, alphaPentaGo.getIterations());
+        assertEquals(move, stats.getPrincipalVariation().get(0));
+        // the pool starts with room for 4096 nodes, and every iteration adds at most one node
+        assertTrue(stats.getNodes() > 4096);
+        assertTrue(stats.getNodes() <= 10001);
+        assertFalse(stats.isTreeFull());
+    }
 
 }
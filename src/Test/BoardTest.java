@@ -3,10 +3,13 @@ package Test;
 import Game.Board;
 
 import Game.Mark;
+import Game.Move;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Random;
+
 /**
  * Test that checks whether the board performs like it should. All methods are systematically covered.
  */
@@ -474,4 +477,249 @@ public class BoardTest {
         assertEquals(Mark.XX, board.getField(3, 5));
         assertEquals(Mark.XX, board.getField(3, 4));
     }
+
+    /**
+     * Test whether getBitboard method returns the fields of each mark
+     */
+    @Test
+    public void testGetBitboard() {
+        assertEquals(0L, board.getBitboard(Mark.XX));
+        assertEquals(0L, board.getBitboard(Mark.OO));
+        assertEquals((1L << Board.DIM * Board.DIM) - 1, board.getBitboard(Mark.EMPTY));
+
+        board.setField(0, Mark.XX);
+        board.setField(35, Mark.OO);
+        assertEquals(1L, board.getBitboard(Mark.XX));
+        assertEquals(1L << 35, board.getBitboard(Mark.OO));
+        assertEquals(Long.bitCount(board.getBitboard(Mark.EMPTY)), board.getEmptyCells().size());
+
+        board.setField(0, Mark.OO);
+        assertEquals(0L, board.getBitboard(Mark.XX));
+        assertEquals(1L | 1L << 35, board.getBitboard(Mark.OO));
+    }
+
+    /**
+     * Test whether equals and hashCode methods compare positions
+     */
+    @Test
+    public void testEquals() {
+        Board other = new Board();
+        assertEquals(board, other);
+        board.setField(7, Mark.XX);
+        assertNotEquals(board, other);
+        other.setField(7, Mark.OO);
+        assertNotEquals(board, other);
+        other.setField(7, Mark.XX);
+        assertEquals(board, other);
+        assertEquals(board.hashCode(), other.hashCode());
+        assertEquals(board, board.deepCopy());
+    }
+
+    /**
+     * Test whether winner is found on the diagonals of length five that do not cross the center
+     */
+    @Test
+    public void testIsWinnerShortDiagonals() {
+        int[][] diagonals = {{1, 8, 15, 22, 29}, {6, 13, 20, 27, 34}, {4, 9, 14, 19, 24}, {11, 16, 21, 26, 31}};
+        for (int[] diagonal : diagonals) {
+            board.reset();
+            for (int i = 0; i < diagonal.length - 1; i++) {
+                board.setField(diagonal[i], Mark.OO);
+            }
+            assertFalse(board.isWinner(Mark.OO));
+            board.setField(diagonal[diagonal.length - 1], Mark.OO);
+            assertTrue(board.isWinner(Mark.OO));
+            assertFalse(board.isWinner(Mark.XX));
+            assertTrue(board.hasWinner());
+        }
+    }
+
+    /**
+     * Test whether makeMove places the mark and rotates, and unmakeMove restores the position
+     */
+    @Test
+    public void testMakeAndUnmakeMove() {
+        board.setField(0, Mark.OO);
+        Board expected = board.deepCopy();
+        expected.setField(1, Mark.XX);
+        expected.rotate(1);
+        Board before = board.deepCopy();
+
+        board.makeMove(Move.of(1, 1), Mark.XX);
+        assertEquals(expected, board);
+        board.makeMove(Move.of(35, 6), Mark.OO);
+        board.unmakeMove();
+        assertEquals(expected, board);
+        board.unmakeMove();
+        assertEquals(before, board);
+
+        assertThrows(IllegalArgumentException.class, () -> board.makeMove(Move.of(0, 0), Mark.XX));
+        assertThrows(IllegalStateException.class, () -> board.unmakeMove());
+    }
+
+    /**
+     * Test whether makeMove skips the rotation when the mark ends the game
+     */
+    @Test
+    public void testMakeMoveWinningSkipsRotation() {
+        for (int i = 0; i < 4; i++) {
+            board.setField(i, Mark.XX);
+        }
+        board.makeMove(Move.of(4, 0), Mark.XX);
+        assertTrue(board.isWinner(Mark.XX));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Mark.XX, board.getField(i));
+        }
+        board.unmakeMove();
+        assertEquals(Mark.EMPTY, board.getField(4));
+        assertFalse(board.hasWinner());
+    }
+
+    /**
+     * Test whether the hash depends only on the position and is restored by unmakeMove
+     */
+    @Test
+    public void testHash() {
+        assertEquals(0L, board.getHash());
+        Board other = new Board();
+        board.setField(3, Mark.XX);
+        board.setField(14, Mark.OO);
+        board.rotate(3);
+        other.setField(14, Mark.OO);
+        other.setField(5, Mark.XX);
+        assertEquals(board, other);
+        assertEquals(board.getHash(), other.getHash());
+        assertEquals(board.getHash(), board.deepCopy().getHash());
+
+        long before = board.getHash();
+        board.makeMove(Move.of(30, 5), Mark.OO);
+        assertNotEquals(before, board.getHash());
+        board.unmakeMove();
+        assertEquals(before, board.getHash());
+
+        for (int i = 0; i < 4; i++) {
+            board.rotate(2);
+        }
+        assertEquals(before, board.getHash());
+        board.setField(5, Mark.EMPTY);
+        board.setField(14, Mark.EMPTY);
+        assertEquals(0L, board.getHash());
+    }
+
+    /**
+     * Checks that rotated and mirrored positions have the same canonical hash and other positions do not.
+     */
+    @Test
+    public void testCanonicalHash() {
+        assertEquals(0L, board.canonicalHash());
+        board.setField(1, Mark.XX);
+        board.setField(14, Mark.OO);
+        assertTrue(board.canonicalHash() <= board.getHash());
+
+        Board mirrored = new Board();
+        mirrored.setField(4, Mark.XX);
+        mirrored.setField(15, Mark.OO);
+        Board rotated = new Board();
+        rotated.setField(34, Mark.XX);
+        rotated.setField(21, Mark.OO);
+        assertEquals(board.canonicalHash(), mirrored.canonicalHash());
+        assertEquals(board.canonicalHash(), rotated.canonicalHash());
+
+        Board swapped = new Board();
+        swapped.setField(1, Mark.OO);
+        swapped.setField(14, Mark.XX);
+        assertNotEquals(board.canonicalHash(), swapped.canonicalHash());
+        rotated.setField(20, Mark.XX);
+        assertNotEquals(board.canonicalHash(), rotated.canonicalHash());
+    }
+
+    /**
+     * Checks that a symmetric board has the same canonical hash, that the symmetry is found again and that a
+     * symmetric move has the same effect on the symmetric board.
+     */
+    @Test
+    public void testSymmetry() {
+        board.setField(1, Mark.XX);
+        board.setField(14, Mark.OO);
+        board.setField(22, Mark.XX);
+        assertEquals(board, board.symmetric(0));
+        for (int s = 0; s < 8; s++) {
+            Board symmetric = board.symmetric(s);
+            assertEquals(board.canonicalHash(), symmetric.canonicalHash());
+            assertEquals(symmetric.getHash(), symmetric.symmetric(0).getHash());
+            assertEquals(symmetric, board.symmetric(board.findSymmetry(symmetric)));
+            for (int packed = 0; packed < Move.COUNT; packed++) {
+                if (!board.isEmptyField(Move.index(packed))) {
+                    continue;
+                }
+                Board moved = board.deepCopy();
+                moved.makeMove(Move.unpack(packed), Mark.OO);
+                Board symmetricMoved = symmetric.deepCopy();
+                symmetricMoved.makeMove(Move.unpack(Board.symmetricMove(packed, s)), Mark.OO);
+                assertEquals(moved.symmetric(s), symmetricMoved);
+            }
+        }
+        Board other = board.deepCopy();
+        other.setField(35, Mark.OO);
+        assertEquals(-1, board.findSymmetry(other));
+    }
+
+    /**
+     * Checks on the positions of many random games that a winning move is found without making moves exactly
+     * when one of the moves wins.
+     */
+    @Test
+    public void testHasWinningMove() {
+        Random random = new Random(42);
+        for (int game = 0; game < 200; game++) {
+            board.reset();
+            Mark mark = Mark.XX;
+            while (!board.gameOver()) {
+                for (Mark m : new Mark[] {Mark.XX, Mark.OO}) {
+                    assertEquals(hasWinningMoveSlow(board, m), board.hasWinningMove(m));
+                }
+                int cell = board.getEmptyField(random.nextInt(board.getEmptyCells().size()));
+                board.makeMove(Move.of(cell, random.nextInt(Move.ROTATIONS)), mark);
+                mark = mark.other();
+            }
+            assertFalse(board.hasWinningMove(mark));
+        }
+    }
+
+    /**
+     * Tries every move of the mark on a copy of the board.
+     */
+    private static boolean hasWinningMoveSlow(Board board, Mark m) {
+        Board copy = board.deepCopy();
+        for (int cell : copy.getEmptyCells()) {
+            for (int r = 0; r < Move.ROTATIONS; r++) {
+                copy.makeMove(Move.of(cell, r), m);
+                boolean won = copy.isWinner(m) && !copy.isWinner(m.other());
+                copy.unmakeMove();
+                if (won) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks that empty fields are counted in ascending order and that a board can take the position of another.
+     */
+    @Test
+    public void testEmptyFieldAndCopy() {
+        board.setField(0, Mark.XX);
+        board.setField(2, Mark.OO);
+        assertEquals(1, board.getEmptyField(0));
+        assertEquals(3, board.getEmptyField(1));
+        assertEquals(35, board.getEmptyField(33));
+
+        Board other = new Board();
+        other.makeMove(Move.of(20, 1), Mark.OO);
+        other.copyFrom(board);
+        assertEquals(board, other);
+        assertEquals(board.getHash(), other.getHash());
+        assertThrows(IllegalStateException.class, other::unmakeMove);
+    }
 }
@@ -1,6 +1,7 @@
 package Test;
 
 import Client.Client;
+import Server.ConnectionMode;
 import Server.ServerImplementation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -149,4 +150,25 @@ public class ClientAndServerTest {
         }
     }
 
+    @Test
+    void testVirtualThreadServer() throws IOException {
+        ServerImplementation virtualServer = new ServerImplementation();
+        virtualServer.setConnectionMode(ConnectionMode.VIRTUAL_THREAD);
+        virtualServer.start(0);
+
+        try (Socket virtualSocket = new Socket(InetAddress.getLocalHost(), virtualServer.getPort());
+             PrintWriter writer = new PrintWriter(new OutputStreamWriter(virtualSocket.getOutputStream()), true);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(virtualSocket.getInputStream()))) {
+
+            writer.println("HELLO~test");
+            assertEquals("HELLO~Pentago 2D", reader.readLine());
+            writer.println("LOGIN~Test");
+            assertEquals("LOGIN", reader.readLine());
+            writer.println("PING");
+            assertEquals("PONG", reader.readLine());
+        } finally {
+            virtualServer.stop();
+        }
+    }
+
 }
@@ -2,16 +2,18 @@ package Test;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 import Player.BotPlayer;
 import Strategy.AlphaPentaGo;
+import Strategy.Algorithms.MonteCarloTreeSearch;
 import Strategy.DecisionEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
+
 /**
  * Tests extractMove function in the Decision Engine to see if Decision Engine can understand the move from 2 different
  * board positions.
@@ -31,17 +33,52 @@ public class DecisionEngineTest {
 
     @Test
     public void testExtractMove() {
-        List<Integer> extractedMove;
+        Move extractedMove;
         Board copyBoard = board.deepCopy();
         copyBoard.setField(7, Mark.XX);
         extractedMove = de.extractMove(board, copyBoard);
-        assertEquals(7, extractedMove.get(0));
+        assertEquals(7, extractedMove.getIndex());
         copyBoard.setField(13, Mark.OO);
         Board anotherCopyBoard = copyBoard.deepCopy();
         anotherCopyBoard.setField(8, Mark.XX);
         anotherCopyBoard.rotate(0);
         extractedMove = de.extractMove(copyBoard, anotherCopyBoard);
-        assertTrue(extractedMove.get(0) == 8 && extractedMove.get(1) == 0);
+        assertTrue(extractedMove.getIndex() == 8 && extractedMove.getRotation() == 0);
+    }
+
+    @Test
+    public void testComputeMinimax() {
+        for (int i = 0; i < 4; i++) {
+            board.setField(i, Mark.XX);
+        }
+        board.setField(6, Mark.OO);
+        board.setField(7, Mark.OO);
+        Move move = de.computeMinimax(500);
+        assertEquals(4, move.getIndex());
+    }
+
+    @Test
+    public void testTactics() {
+        for (int i = 0; i < 4; i++) {
+            board.setField(i, Mark.XX);
+        }
+        board.setField(6, Mark.OO);
+        board.setField(7, Mark.OO);
+        assertEquals(4, de.findWinningMove().getIndex());
+        assertEquals(4, de.compute(new MonteCarloTreeSearch(1)).getIndex());
+
+        board.reset();
+        for (int i = 0; i < 4; i++) {
+            board.setField(i, Mark.OO);
+        }
+        board.setField(35, Mark.XX);
+        assertNull(de.findWinningMove());
+        List<Move> safeMoves = de.findSafeMoves();
+        assertFalse(safeMoves.isEmpty());
+        assertTrue(safeMoves.size() < board.getEmptyCells().size() * Move.ROTATIONS);
+        assertFalse(safeMoves.contains(Move.of(30, 0)));
+        Move move = de.compute(new MonteCarloTreeSearch(1));
+        assertTrue(safeMoves.contains(move));
     }
 
 }
@@ -0,0 +1,180 @@
+package Test;
+
+import Server.ClientHandler;
+import Server.GameSession;
+import Server.ServerImplementation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test that checks whether the server runs independent games for different pairs of players.
+ */
+public class GameSessionTest {
+
+    private ServerImplementation server;
+
+    @BeforeEach
+    void setUp() {
+        server = new ServerImplementation();
+    }
+
+    /**
+     * Client that stores the lines it gets from the server instead of sending them over a socket.
+     */
+    private static class RecordingClient extends ClientHandler {
+
+        private final List<String> lines = new ArrayList<>();
+
+        RecordingClient(ServerImplementation server, String name) {
+            super(server);
+            server.addClient(this);
+            server.handleMessage(this, "LOGIN~" + name);
+        }
+
+        @Override
+        protected void writeLine(String line) {
+            lines.add(line);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        String last() {
+            return lines.get(lines.size() - 1);
+        }
+    }
+
+    @Test
+    void testConcurrentGames() {
+        RecordingClient a = new RecordingClient(server, "A");
+        RecordingClient b = new RecordingClient(server, "B");
+        RecordingClient c = new RecordingClient(server, "C");
+        RecordingClient d = new RecordingClient(server, "D");
+        server.handleMessage(a, "QUEUE");
+        server.handleMessage(b, "QUEUE");
+        server.handleMessage(c, "QUEUE");
+        server.handleMessage(d, "QUEUE");
+        assertEquals("NEWGAME~A~B", b.last());
+        assertEquals("NEWGAME~C~D", c.last());
+        assertEquals(2, server.getActiveGames());
+
+        server.handleMessage(a, "QUEUE");
+        assertEquals("ERROR~You are already in a game", a.last());
+
+        //both games use the same fields without getting in the way of each other
+        server.handleMessage(a, "MOVE~0~7");
+        server.handleMessage(c, "MOVE~0~7");
+        assertEquals("MOVE~0~7", b.last());
+        assertEquals("MOVE~0~7", d.last());
+        server.handleMessage(b, "MOVE~0~0");
+        assertEquals("ERROR~Cell is not empty", b.last());
+        server.handleMessage(c, "MOVE~1~0");
+        assertEquals("ERROR~Not your turn", c.last());
+
+        //the first game ends because A leaves, the second game goes on
+        server.removeClient(a);
+        assertEquals("GAMEOVER~DISCONNECT~B", b.last());
+        assertEquals(1, server.getActiveGames());
+        server.handleMessage(b, "MOVE~1~0");
+        assertEquals("ERROR~No active game", b.last());
+        server.handleMessage(d, "MOVE~1~0");
+        assertEquals("MOVE~1~0", c.last());
+    }
+
+    @Test
+    void testSlowClientOnlyHoldsUpItsGame() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingClient a = new RecordingClient(server, "A");
+        RecordingClient b = new RecordingClient(server, "B") {
+            @Override
+            protected void writeLine(String line) {
+                //the socket of B is stuck while it gets a move
+                if (line.startsWith("MOVE")) {
+                    writing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.writeLine(line);
+            }
+        };
+        RecordingClient c = new RecordingClient(server, "C");
+        RecordingClient d = new RecordingClient(server, "D");
+        server.handleMessage(a, "QUEUE");
+        server.handleMessage(b, "QUEUE");
+        server.handleMessage(c, "QUEUE");
+        server.handleMessage(d, "QUEUE");
+
+        Thread slowGame = new Thread(() -> server.handleMessage(a, "MOVE~0~7"));
+        slowGame.start();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            server.handleMessage(c, "MOVE~0~7");
+            server.handleMessage(d, "LIST");
+            assertEquals(2, server.getActiveGames());
+        });
+        assertEquals("MOVE~0~7", d.lines.get(d.lines.size() - 2));
+
+        release.countDown();
+        slowGame.join();
+        assertEquals("MOVE~0~7", b.last());
+        assertEquals("MOVE~0~7", a.last());
+    }
+
+    @Test
+    void testInvalidMoves() {
+        RecordingClient a = new RecordingClient(server, "A");
+        RecordingClient b = new RecordingClient(server, "B");
+        GameSession session = new GameSession(a, b);
+        int received = b.lines.size();
+        session.handleMove(a, "MOVE~x~1");
+        assertEquals("ERROR~Wrong parameters", a.last());
+        session.handleMove(a, "MOVE~1~");
+        assertEquals("ERROR~Wrong parameters", a.last());
+        session.handleMove(a, "MOVE~1~8");
+        assertEquals("ERROR~You can only rotate between 0 and 7", a.last());
+        session.handleMove(a, "MOVE~36~1");
+        assertEquals("ERROR~This is not a position on the board", a.last());
+        assertEquals(received, b.lines.size());
+
+        session.handleMove(a, "MOVE~0~7");
+        assertEquals("MOVE~0~7", b.last());
+        //a move on an occupied cell is not sent to the other player
+        session.handleMove(b, "MOVE~0~7");
+        assertEquals("ERROR~Cell is not empty", b.last());
+        assertEquals("MOVE~0~7", a.last());
+        session.handleMove(b, "MOVE~1~7");
+        assertEquals("MOVE~1~7", a.last());
+    }
+
+    @Test
+    void testVictory() {
+        RecordingClient a = new RecordingClient(server, "A");
+        RecordingClient b = new RecordingClient(server, "B");
+        GameSession session = new GameSession(a, b);
+        String[] moves = {"MOVE~0~0", "MOVE~5~7", "MOVE~0~7", "MOVE~17~7", "MOVE~6~7", "MOVE~29~7",
+                "MOVE~18~7", "MOVE~10~7", "MOVE~24~7"};
+        for (int i = 0; i < moves.length; i++) {
+            assertFalse(session.isOver());
+            session.handleMove(i % 2 == 0 ? a : b, moves[i]);
+        }
+        assertTrue(session.isOver());
+        assertEquals("GAMEOVER~VICTORY~A", a.last());
+        assertEquals("GAMEOVER~VICTORY~A", b.last());
+        session.abandon(b);
+        assertEquals("GAMEOVER~VICTORY~A", a.last());
+    }
+
+}
@@ -0,0 +1,116 @@
+package Test;
+
+import Game.Board;
+import Game.Mark;
+import Game.Move;
+import Strategy.Algorithms.Minimax;
+import Strategy.Algorithms.SearchStats;
+import Strategy.Algorithms.TranspositionTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that checks how minimax and the transposition table find forced results.
+ */
+public class MinimaxTest {
+
+    private Board board;
+
+    @BeforeEach
+    public void setUp() {
+        board = new Board();
+    }
+
+    /**
+     * Checks that a winning move in one is found with and without the transposition table.
+     */
+    @Test
+    public void testFindWinningMove() {
+        for (int i = 0; i < 4; i++) {
+            board.setField(i * Board.DIM, Mark.XX);
+        }
+        board.setField(1, Mark.OO);
+        board.setField(7, Mark.OO);
+        board.setField(13, Mark.OO);
+        Board before = board.deepCopy();
+
+        Move move = new Minimax(1).findBestMove(board, Mark.XX);
+        assertEquals(24, move.getIndex());
+        assertEquals(before, board);
+        assertEquals(1, new Minimax(1).findNextMove(board, Mark.XX));
+
+        TranspositionTable table = new TranspositionTable(1 << 16);
+        move = new Minimax(2, table).findBestMove(board, Mark.XX);
+        assertEquals(24, move.getIndex());
+        assertEquals(before, board);
+        assertEquals(before.getHash(), board.getHash());
+    }
+
+    /**
+     * Checks that the score tells which player has won.
+     */
+    @Test
+    public void testFinishedGame() {
+        for (int i = 0; i < 5; i++) {
+            board.setField(i, Mark.OO);
+        }
+        assertEquals(1, new Minimax(2).findNextMove(board, Mark.OO));
+        assertEquals(-1, new Minimax(2).findNextMove(board, Mark.XX));
+        assertNull(new Minimax(2).findBestMove(board, Mark.XX));
+    }
+
+    /**
+     * Checks that iterative deepening finds the win and returns a legal move when the time budget is small.
+     */
+    @Test
+    public void testIterativeDeepening() {
+        for (int i = 0; i < 4; i++) {
+            board.setField(i * Board.DIM, Mark.XX);
+        }
+        Minimax minimax = new Minimax(4, new TranspositionTable(1 << 16));
+        assertEquals(24, minimax.findBestMove(board, Mark.XX, 1000).getIndex());
+        assertEquals(1, minimax.getCompletedDepth());
+
+        board.reset();
+        long start = System.currentTimeMillis();
+        Move move = minimax.findBestMove(board, Mark.OO, 50);
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertNotNull(move);
+        assertTrue(board.isEmptyField(move.getIndex()));
+        assertTrue(minimax.getCompletedDepth() >= 1);
+
+        SearchStats stats = minimax.getStats();
+        assertEquals(move, stats.getPrincipalVariation().get(0));
+        assertEquals(minimax.getCompletedDepth(), stats.getMaxDepth());
+        assertTrue(stats.getNodes() > 0);
+        assertTrue(stats.getRootVisits().isEmpty());
+    }
+
+    /**
+     * Checks that the transposition table returns what was stored and replaces entries by depth.
+     */
+    @Test
+    public void testTranspositionTable() {
+        TranspositionTable table = new TranspositionTable(16);
+        assertEquals(16, table.size());
+        assertEquals(0L, table.probe(42L));
+
+        table.store(42L, 3, -1, TranspositionTable.LOWER, 287);
+        long entry = table.probe(42L);
+        assertEquals(-1, TranspositionTable.score(entry));
+        assertEquals(3, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(287, TranspositionTable.move(entry));
+
+        table.store(42L + 16, 2, 1, TranspositionTable.EXACT, -1);
+        assertEquals(0L, table.probe(42L + 16));
+        table.store(42L + 16, 3, 1, TranspositionTable.EXACT, -1);
+        assertEquals(0L, table.probe(42L));
+        assertEquals(-1, TranspositionTable.move(table.probe(42L + 16)));
+
+        table.clear();
+        assertEquals(0L, table.probe(42L + 16));
+    }
+
+}
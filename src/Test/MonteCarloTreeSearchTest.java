@@ -0,0 +1,270 @@
+package Test;
+
+import Game.Board;
+import Game.Mark;
+import Game.Move;
+import Strategy.Algorithms.HeuristicRolloutPolicy;
+import Strategy.Algorithms.MonteCarloTreeSearch;
+import Strategy.Algorithms.Node;
+import Strategy.Algorithms.RolloutPolicy;
+import Strategy.Algorithms.SearchStats;
+import Strategy.Algorithms.State;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests that checks how the MCTS expands its tree, keeps it between moves and searches on the opponent's time.
+ */
+public class MonteCarloTreeSearchTest {
+
+    private Board board;
+    private MonteCarloTreeSearch mcts;
+
+    @BeforeEach
+    public void setUp() {
+        board = new Board();
+        mcts = new MonteCarloTreeSearch(1);
+        mcts.setThinkTime(60000);
+        mcts.setMaxIterations(2000);
+    }
+
+    /**
+     * Checks that the subtree after our move and the reply of the opponent is used for the next search.
+     */
+    @Test
+    public void testTreeReuse() {
+        board.setField(14, Mark.XX);
+        board = mcts.findNextMove(board, Mark.OO);
+        Node root = mcts.getTree().getRoot();
+        assertEquals(board, root.getState().getBoard());
+
+        Node reply = root.getChildArray().get(0);
+        int reusedVisits = reply.getState().getVisitCount();
+        board = reply.getState().getBoard().deepCopy();
+        mcts.findNextMove(board, Mark.OO);
+        assertNull(reply.getParent());
+        assertEquals(reusedVisits + 2000, reply.getState().getVisitCount());
+        assertSame(reply, mcts.getTree().getRoot().getParent());
+
+        SearchStats stats = mcts.getStats();
+        assertEquals(2000, stats.getIterations());
+        assertEquals(2000, stats.getRollouts());
+        assertTrue(stats.getNodes() > 2000);
+        assertTrue(stats.getMaxDepth() >= 2);
+        assertEquals(mcts.getTree().getRoot(), reply.getChildWithMaxScore());
+        assertEquals(reply.getChildArray().size(), stats.getRootVisits().size());
+        assertEquals(Move.unpack(mcts.getTree().getRoot().getMove()), stats.getPrincipalVariation().get(0));
+        assertTrue(stats.getElapsedNanos() > 0);
+        assertTrue(stats.toString().startsWith("MCTS"));
+
+        mcts.setReuseTree(false);
+        assertNull(mcts.getTree());
+        Board unknown = new Board();
+        unknown.makeMove(Move.of(0, 0), Mark.XX);
+        mcts.findNextMove(unknown, Mark.OO);
+        assertEquals(2000, mcts.getTree().getRoot().getParent().getState().getVisitCount());
+    }
+
+    /**
+     * Checks that the tree is reused after a reply that leads to a mirror of the position of the stored child, and
+     * that the reused subtree and the chosen move fit the board of the game.
+     */
+    @Test
+    public void testTreeReuseSymmetricReply() {
+        board.setField(14, Mark.XX);
+        board = mcts.findNextMove(board, Mark.OO, List.of(Move.of(21, 2)));
+        Board mirroredReply = board.deepCopy();
+        mirroredReply.makeMove(Move.of(1, 2), Mark.XX);
+        Board reply = board.deepCopy();
+        reply.makeMove(Move.of(6, 2), Mark.XX);
+        assertNotEquals(mirroredReply, reply);
+        assertEquals(mirroredReply.canonicalHash(), reply.canonicalHash());
+
+        Node stored = null;
+        for (Node child : mcts.getTree().getRoot().getChildArray()) {
+            if (child.getState().getBoard().canonicalHash() == reply.canonicalHash()) {
+                stored = child;
+            }
+        }
+        assertNotNull(stored);
+        if (stored.getState().getBoard().equals(reply)) {
+            reply = mirroredReply;
+        }
+        int reusedVisits = stored.getState().getVisitCount();
+        Board result = mcts.findNextMove(reply.deepCopy(), Mark.OO);
+        assertSame(stored, mcts.getTree().getRoot().getParent());
+        assertEquals(reply, stored.getState().getBoard());
+        assertEquals(reusedVisits + 2000, stored.getState().getVisitCount());
+        for (Node child : stored.getChildArray()) {
+            Board expected = reply.deepCopy();
+            expected.makeMove(Move.unpack(child.getMove()), Mark.OO);
+            assertEquals(expected, child.getState().getBoard());
+        }
+        Board expected = reply.deepCopy();
+        expected.makeMove(mcts.getStats().getPrincipalVariation().get(0), Mark.OO);
+        assertEquals(expected, result);
+    }
+
+    /**
+     * Checks that pondering searches in the tree of the last move until it is stopped.
+     */
+    @Test
+    public void testPondering() throws InterruptedException {
+        board.setField(14, Mark.XX);
+        board = mcts.findNextMove(board, Mark.OO);
+        Node root = mcts.getTree().getRoot();
+        int visits = root.getState().getVisitCount();
+
+        mcts.startPondering(board.deepCopy(), Mark.OO);
+        Thread.sleep(300);
+        mcts.stopPondering();
+        int ponderVisits = root.getState().getVisitCount();
+        assertTrue(ponderVisits > visits);
+        assertNull(root.getParent());
+        assertSame(root, mcts.getTree().getRoot());
+        Thread.sleep(50);
+        assertEquals(ponderVisits, root.getState().getVisitCount());
+
+        Node reply = root.getChildArray().get(0);
+        int replyVisits = reply.getState().getVisitCount();
+        mcts.findNextMove(reply.getState().getBoard().deepCopy(), Mark.OO);
+        assertEquals(replyVisits + 2000, reply.getState().getVisitCount());
+    }
+
+    /**
+     * Checks that the candidate moves of the last search do not limit the replies of the opponent in pondering.
+     */
+    @Test
+    public void testPonderingAfterCandidateMoves() throws InterruptedException {
+        board.setField(14, Mark.XX);
+        mcts.findNextMove(board, Mark.OO, List.of(Move.of(35, 7)));
+        Board unknown = new Board();
+        unknown.makeMove(Move.of(0, 2), Mark.OO);
+        mcts.startPondering(unknown, Mark.OO);
+        Thread.sleep(300);
+        mcts.stopPondering();
+        Node root = mcts.getTree().getRoot();
+        assertEquals(unknown, root.getState().getBoard());
+        assertTrue(root.getChildArray().size() > 1);
+    }
+
+    /**
+     * Checks that root parallel trees with several rollouts per leaf count every iteration once.
+     */
+    @Test
+    public void testRootParallelRollouts() {
+        mcts.setThreads(2);
+        mcts.setRollouts(3);
+        mcts.setMaxIterations(1000);
+        board.setField(14, Mark.XX);
+        mcts.findNextMove(board, Mark.OO);
+        assertEquals(1000, mcts.getIterations());
+        assertEquals(1000, mcts.getStats().getIterations());
+        assertEquals(3000, mcts.getStats().getRollouts());
+    }
+
+    /**
+     * Checks that a node creates one child per expansion until every unique position has a child.
+     */
+    @Test
+    public void testLazyExpansion() {
+        board.setField(14, Mark.XX);
+        State state = new State(board, Mark.XX);
+        Node node = new Node(state);
+        assertFalse(node.isFullyExpanded());
+
+        Node child = node.expandChild();
+        assertEquals(1, node.getChildArray().size());
+        assertSame(node, child.getParent());
+        assertEquals(Mark.OO, child.getState().getMark());
+        Board expected = board.deepCopy();
+        expected.makeMove(Move.unpack(child.getMove()), Mark.OO);
+        assertEquals(expected, child.getState().getBoard());
+
+        int possibleStates = state.getAllPossibleStates().size();
+        Set<Board> boards = new HashSet<>();
+        List<Node> firstChildren = node.getChildArray();
+        while (node.expandChild() != null) {
+            assertSame(node.getChild(node.getChildCount() - 1).getParent(), node);
+        }
+        //the children are kept in place, a view that was taken earlier still shows the first child
+        assertEquals(List.of(child), firstChildren);
+        assertSame(child, node.getChild(0));
+        assertThrows(UnsupportedOperationException.class, () -> firstChildren.add(child));
+        for (Node expanded : node.getChildArray()) {
+            boards.add(expanded.getState().getBoard());
+        }
+        assertTrue(node.isFullyExpanded());
+        assertEquals(possibleStates, node.getChildArray().size());
+        assertEquals(possibleStates, node.getChildCount());
+        assertEquals(possibleStates, boards.size());
+    }
+
+    /**
+     * Checks that the heuristic rollout policy wins, blocks and extends lines and that the search can use it.
+     */
+    @Test
+    public void testHeuristicRolloutPolicy() {
+        RolloutPolicy policy = new HeuristicRolloutPolicy();
+        Random random = new Random(1);
+        for (int i = 0; i < 4; i++) {
+            board.setField(i, Mark.XX);
+        }
+        assertEquals(4, Move.index(policy.selectMove(board, Mark.XX, random)));
+        assertEquals(4, Move.index(policy.selectMove(board, Mark.OO, random)));
+
+        board.setField(4, Mark.OO);
+        board.setField(6, Mark.XX);
+        board.setField(12, Mark.XX);
+        for (int i = 0; i < 10; i++) {
+            int field = Move.index(policy.selectMove(board, Mark.XX, random));
+            assertTrue(field == 18 || field == 24);
+        }
+
+        board.reset();
+        mcts.setRolloutPolicy(policy);
+        assertSame(policy, mcts.getRolloutPolicy());
+        board.setField(14, Mark.XX);
+        assertNotNull(mcts.findNextMove(board, Mark.OO));
+        assertEquals(2000, mcts.getIterations());
+    }
+
+    /**
+     * Checks that only the candidate moves are searched, with <code>Node</code> objects and in the node pool, and
+     * that the statistics tell when the node pool is full.
+     */
+    @Test
+    public void testCandidateMoves() {
+        board.setField(14, Mark.XX);
+        Board expected = board.deepCopy();
+        expected.makeMove(Move.of(35, 7), Mark.OO);
+        List<Move> candidates = List.of(Move.of(35, 7), Move.of(0, 7));
+        Board result = mcts.findNextMove(board, Mark.OO, candidates);
+        assertEquals(2, mcts.getTree().getRoot().getParent().getChildArray().size());
+
+        Board other = board.deepCopy();
+        other.makeMove(Move.of(0, 7), Mark.OO);
+        assertTrue(result.equals(expected) || result.equals(other));
+
+        mcts.setPooled(true);
+        result = mcts.findNextMove(board, Mark.OO, candidates.subList(0, 1));
+        // the pooled tree keeps one move per position, which can be a symmetric twin of the candidate
+        assertEquals(expected.canonicalHash(), result.canonicalHash());
+        assertEquals(1, mcts.getStats().getRootVisits().size());
+        assertFalse(mcts.getStats().isTreeFull());
+
+        mcts.setPoolCapacity(100);
+        board.reset();
+        assertNotNull(mcts.findNextMove(board, Mark.OO));
+        assertEquals(100, mcts.getStats().getNodes());
+        assertTrue(mcts.getStats().isTreeFull());
+        assertEquals(2000, mcts.getIterations());
+    }
+
+}
@@ -0,0 +1,49 @@
+package Test;
+
+import Game.Move;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test that checks whether moves are packed, parsed and formatted correctly.
+ */
+public class MoveTest {
+
+    /**
+     * Test whether every move survives packing and unpacking
+     */
+    @Test
+    public void testPackAndUnpack() {
+        for (int index = 0; index < 36; index++) {
+            for (int rotation = 0; rotation < Move.ROTATIONS; rotation++) {
+                Move move = Move.of(index, rotation);
+                assertEquals(index, move.getIndex());
+                assertEquals(rotation, move.getRotation());
+                assertSame(move, Move.unpack(move.pack()));
+                assertEquals(index, Move.index(move.pack()));
+                assertEquals(rotation, Move.rotation(move.pack()));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> Move.of(36, 0));
+        assertThrows(IllegalArgumentException.class, () -> Move.of(0, 8));
+    }
+
+    /**
+     * Test whether the protocol form of a move is read and written
+     */
+    @Test
+    public void testParseAndToString() {
+        Move move = Move.parse("MOVE~14~5");
+        assertEquals(14, move.getIndex());
+        assertEquals(5, move.getRotation());
+        assertEquals("MOVE~14~5", move.toString());
+        assertNull(Move.parse("MOVE~14"));
+        assertNull(Move.parse("MOVE~36~0"));
+        assertNull(Move.parse("MOVE~0~8"));
+        assertNull(Move.parse("MOVE~a~1"));
+        assertNull(Move.parse("PING"));
+        assertNull(Move.parse(null));
+    }
+
+}
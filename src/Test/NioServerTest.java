@@ -0,0 +1,133 @@
+package Test;
+
+import Server.ConnectionMode;
+import Server.ServerImplementation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test that checks whether the server speaks the protocol when all clients are served by one selector.
+ */
+public class NioServerTest {
+
+    private ServerImplementation server;
+    private Socket socket;
+    private Socket socket1;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ServerImplementation();
+        server.setConnectionMode(ConnectionMode.NIO);
+        server.start(0);
+        socket = new Socket(InetAddress.getLocalHost(), server.getPort());
+        socket1 = new Socket(InetAddress.getLocalHost(), server.getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        socket.close();
+        socket1.close();
+        server.stop();
+    }
+
+    /**
+     * Checks that lines are framed correctly when they arrive in parts or together in one packet.
+     */
+    @Test
+    void testLineFraming() throws IOException, InterruptedException {
+        OutputStream output = socket.getOutputStream();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+        output.write("HEL".getBytes());
+        output.flush();
+        Thread.sleep(50);
+        output.write("LO~test\r\nLOGIN~Test\nPI".getBytes());
+        output.flush();
+        assertEquals("HELLO~Pentago 2D", reader.readLine());
+        assertEquals("LOGIN", reader.readLine());
+        output.write("NG\n".getBytes());
+        output.flush();
+        assertEquals("PONG", reader.readLine());
+    }
+
+    /**
+     * Checks that two clients can play a game and that idle connections do not get in the way.
+     */
+    @Test
+    void testGameWithIdleClients() throws IOException {
+        List<Socket> idle = new ArrayList<>();
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             PrintWriter writer1 = new PrintWriter(new OutputStreamWriter(socket1.getOutputStream()), true);
+             BufferedReader reader1 = new BufferedReader(new InputStreamReader(socket1.getInputStream()))) {
+            for (int i = 0; i < 100; i++) {
+                idle.add(new Socket(InetAddress.getLocalHost(), server.getPort()));
+            }
+
+            writer.println("LOGIN~Test");
+            assertEquals("LOGIN", reader.readLine());
+            writer1.println("LOGIN~Test1");
+            assertEquals("LOGIN", reader1.readLine());
+            writer.println("QUEUE");
+            writer.println("PING");
+            assertEquals("PONG", reader.readLine());
+            writer1.println("QUEUE");
+            assertEquals("NEWGAME~Test~Test1", reader.readLine());
+            assertEquals("NEWGAME~Test~Test1", reader1.readLine());
+
+            String[] moves = {"MOVE~0~0", "MOVE~5~7", "MOVE~0~7", "MOVE~17~7", "MOVE~6~7", "MOVE~29~7",
+                    "MOVE~18~7", "MOVE~10~7", "MOVE~24~7"};
+            for (int i = 0; i < moves.length; i++) {
+                (i % 2 == 0 ? writer : writer1).println(moves[i]);
+                assertEquals(moves[i], reader.readLine());
+                assertEquals(moves[i], reader1.readLine());
+            }
+            assertEquals("GAMEOVER~VICTORY~Test", reader.readLine());
+            assertEquals("GAMEOVER~VICTORY~Test", reader1.readLine());
+        } finally {
+            for (Socket s : idle) {
+                s.close();
+            }
+        }
+    }
+
+    /**
+     * Checks that a client that sends a malformed move only loses its own connection and the selector keeps
+     * serving the other clients.
+     */
+    @Test
+    void testMalformedMove() throws IOException {
+        try (Socket bystander = new Socket(InetAddress.getLocalHost(), server.getPort());
+             PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             PrintWriter writer1 = new PrintWriter(new OutputStreamWriter(socket1.getOutputStream()), true);
+             BufferedReader reader1 = new BufferedReader(new InputStreamReader(socket1.getInputStream()));
+             PrintWriter writer2 = new PrintWriter(new OutputStreamWriter(bystander.getOutputStream()), true);
+             BufferedReader reader2 = new BufferedReader(new InputStreamReader(bystander.getInputStream()))) {
+            writer.println("LOGIN~Test");
+            assertEquals("LOGIN", reader.readLine());
+            writer1.println("LOGIN~Test1");
+            assertEquals("LOGIN", reader1.readLine());
+            writer.println("QUEUE");
+            writer.println("PING");
+            assertEquals("PONG", reader.readLine());
+            writer1.println("QUEUE");
+            assertEquals("NEWGAME~Test~Test1", reader.readLine());
+            assertEquals("NEWGAME~Test~Test1", reader1.readLine());
+
+            writer.println("MOVE~x~1");
+            writer2.println("PING");
+            assertEquals("PONG", reader2.readLine());
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package Test;
+
+import Strategy.Algorithms.NodePool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that checks how the node pool stores the tree of MCTS.
+ */
+public class NodePoolTest {
+
+    private NodePool nodePool;
+
+    @BeforeEach
+    public void setUp() {
+        nodePool = new NodePool(3);
+    }
+
+    /**
+     * Checks that nodes, children and statistics are stored and that the pool does not grow over its capacity.
+     */
+    @Test
+    public void testAddNodes() {
+        int root = nodePool.add(NodePool.NONE, NodePool.NONE, 7L);
+        int first = nodePool.add(root, 287, 8L);
+        int second = nodePool.add(root, 3, 9L);
+        assertEquals(NodePool.NONE, nodePool.add(root, 4, 10L));
+        assertEquals(3, nodePool.size());
+
+        assertEquals(NodePool.NONE, nodePool.getParent(root));
+        assertEquals(NodePool.NONE, nodePool.getMove(root));
+        assertEquals(second, nodePool.getFirstChild(root));
+        assertEquals(first, nodePool.getNextSibling(second));
+        assertEquals(NodePool.NONE, nodePool.getNextSibling(first));
+        assertEquals(2, nodePool.getChildCount(root));
+        assertEquals(0, nodePool.getChildCount(first));
+        assertEquals(root, nodePool.getParent(second));
+        assertEquals(287, nodePool.getMove(first));
+        assertEquals(9L, nodePool.getKey(second));
+
+        nodePool.setTriedMoves(root, 288);
+        assertEquals(288, nodePool.getTriedMoves(root));
+        assertEquals(0, nodePool.getTriedMoves(first));
+
+        nodePool.addVisits(first, 2);
+        nodePool.addScore(first, 10);
+        assertEquals(2, nodePool.getVisits(first));
+        assertEquals(10, nodePool.getScore(first));
+        nodePool.setScore(first, Integer.MIN_VALUE);
+        nodePool.addScore(first, 10);
+        assertEquals(Integer.MIN_VALUE, nodePool.getScore(first));
+
+        nodePool.clear();
+        assertEquals(0, nodePool.size());
+        root = nodePool.add(NodePool.NONE, NodePool.NONE, 7L);
+        assertEquals(0, nodePool.getVisits(root));
+        assertEquals(0, nodePool.getChildCount(root));
+        assertEquals(0, nodePool.getTriedMoves(root));
+    }
+
+    /**
+     * Checks that the arrays grow until the capacity is reached and keep all nodes.
+     */
+    @Test
+    public void testGrow() {
+        nodePool = new NodePool(10000);
+        int node = nodePool.add(NodePool.NONE, NodePool.NONE, 0L);
+        for (int i = 1; i < 10000; i++) {
+            node = nodePool.add(node, i % 288, i);
+            assertEquals(i, node);
+        }
+        assertEquals(NodePool.NONE, nodePool.add(node, 0, 0L));
+        assertEquals(10000, nodePool.size());
+        assertEquals(9998, nodePool.getParent(9999));
+        assertEquals(9999L, nodePool.getKey(9999));
+        assertEquals(9999, nodePool.getFirstChild(9998));
+    }
+
+}
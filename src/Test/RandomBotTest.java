@@ -3,11 +3,14 @@ package Test;
 import Game.Board;
 
 import Game.Mark;
+import Game.Move;
 import Player.BotPlayer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,10 +36,22 @@ public class RandomBotTest {
         List<Integer> emptyCells = board.getEmptyCells();
         for (int i = 36; i > 0; i--) {
             assertEquals(i, emptyCells.size());
-            board.setField(Integer.parseInt(botPlayer.determineMove(board)[1]), Mark.XX);
+            board.setField(botPlayer.determineMove(board).getIndex(), Mark.XX);
             emptyCells = board.getEmptyCells();
         }
         assertTrue(board.isFull());
     }
 
+    /**
+     * Checks that every rotation, including the last one, can be chosen.
+     */
+    @Test
+    public void randomRotationTest() {
+        Set<Integer> rotations = new HashSet<>();
+        for (int i = 0; i < 1000 && rotations.size() < Move.ROTATIONS; i++) {
+            rotations.add(botPlayer.determineMove(board).getRotation());
+        }
+        assertEquals(Move.ROTATIONS, rotations.size());
+    }
+
 }
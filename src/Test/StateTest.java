@@ -2,12 +2,15 @@ package Test;
 
 import Game.Board;
 import Game.Mark;
+import Game.Move;
 import Strategy.Algorithms.State;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Tests that checks how states work in MCTS algorithm.
@@ -23,13 +26,15 @@ public class StateTest {
     }
 
     /**
-     * Checks that all possible states return all states on the board without duplicates.
+     * Checks that all possible states return all states on the board without duplicates and symmetric positions.
+     * The 36 first moves are only 6 different positions.
      */
     @Test
     public void testGetAllPossibleStates() {
         State state = new State(board, mark);
         List<State> possibleStates = state.getAllPossibleStates();
-        assertEquals(36, possibleStates.size());
+        assertEquals(6, possibleStates.size());
+        assertEquals(6, state.getUntriedMoves().length);
     }
 
     /**
@@ -42,4 +47,27 @@ public class StateTest {
         assertTrue(state.getBoard().getEmptyCells().size() == board.getEmptyCells().size() - 1);
     }
 
+    /**
+     * Checks that a random move is always one of the moves of the game, so a placement that wins is not rotated.
+     */
+    @Test
+    public void testRandomPlayWinningPlacement() {
+        for (int i = 1; i < 5; i++) {
+            board.setField(i, mark);
+        }
+        Set<Board> results = new HashSet<>();
+        for (int cell : board.getEmptyCells()) {
+            for (int r = 0; r < Move.ROTATIONS; r++) {
+                Board result = board.deepCopy();
+                result.makeMove(Move.of(cell, r), mark);
+                results.add(result);
+            }
+        }
+        for (int i = 0; i < 500; i++) {
+            State state = new State(board, mark);
+            state.randomPlay();
+            assertTrue(results.contains(state.getBoard()));
+        }
+    }
+
 }